@@ -0,0 +1,12 @@
+#!/bin/bash
+# Runs once, when the replica's data directory is initialised: follow the primary from its first transaction
+set -e
+mysql -uroot -p"${MYSQL_ROOT_PASSWORD}" <<SQL
+CHANGE REPLICATION SOURCE TO
+  SOURCE_HOST='db',
+  SOURCE_USER='root',
+  SOURCE_PASSWORD='${MYSQL_ROOT_PASSWORD}',
+  SOURCE_AUTO_POSITION=1,
+  GET_SOURCE_PUBLIC_KEY=1;
+START REPLICA;
+SQL
@@ -0,0 +1,49 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Rellena {@code images.storage_key} en las imágenes subidas antes de que se guardara la clave. Su URL era
+ * {@code <public-url>/<bucket>/<clave codificada>}, así que la clave es el último segmento decodificado.
+ * Con la clave, esas imágenes se sirven con la estrategia de URLs configurada y sus objetos se borran al borrarlas.
+ */
+public class V7__Backfill_storage_keys extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement select = connection.createStatement();
+             ResultSet images = select.executeQuery("select id, s3url from images where storage_key is null");
+             PreparedStatement update = connection.prepareStatement("update images set storage_key = ? where id = ?")) {
+            int pending = 0;
+            while (images.next()) {
+                update.setString(1, storageKey(images.getString(2)));
+                update.setLong(2, images.getLong(1));
+                update.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    update.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        }
+    }
+
+    // The whole key was percent-encoded, '/' included, so it is always the last path segment
+    static String storageKey(String url) {
+        return UriUtils.decode(url.substring(url.lastIndexOf('/') + 1), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,83 @@
+package imagelify.api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import imagelify.api.repository.ReadReplica;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Réplica de lectura opcional. Con {@code datasource.replica.enabled} la aplicación usa dos pools,
+ * {@code imagelify-primary} e {@code imagelify-replica}, con métricas {@code hikaricp.*} separadas por pool;
+ * las consultas marcadas con {@link ReadReplica} en transacciones de solo lectura van a la réplica.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+public class DataSourceConfig {
+
+    enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Qualifier("primaryDataSource") HikariDataSource primary,
+                                              @Value("${datasource.replica.url}") String url,
+                                              @Value("${datasource.replica.username:${spring.datasource.username}}") String username,
+                                              @Value("${datasource.replica.password:${spring.datasource.password}}") String password) {
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        // Same driver tuning as the primary, and the same auto-commit mode Hibernate was configured for
+        replica.setDataSourceProperties(primary.getDataSourceProperties());
+        replica.setAutoCommit(primary.isAutoCommit());
+        return replica;
+    }
+
+    /**
+     * Pool que usan JPA y Flyway. La conexión real se pide al ejecutar la primera sentencia: al empezar
+     * la transacción todavía no consta como de solo lectura y siempre se elegiría el primario.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        AbstractRoutingDataSource routing = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                // Writes and reads that must see them (dedup, quota, auth) stay on the primary
+                return ReadReplica.isRequested() && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                        ? Target.REPLICA
+                        : Target.PRIMARY;
+            }
+        };
+        routing.setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
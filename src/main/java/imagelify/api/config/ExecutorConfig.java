@@ -0,0 +1,138 @@
+package imagelify.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${storage.multipart.executor-threads:8}")
+    private int partUploadThreads;
+
+    @Value("${upload.async.worker-threads:4}")
+    private int uploadJobThreads;
+
+    @Value("${upload.async.queue-capacity:100}")
+    private int uploadJobQueueCapacity;
+
+    @Value("${upload.speculative.executor-threads:32}")
+    private int uploadStageThreads;
+
+    @Value("${upload.batch.parallelism:8}")
+    private int batchUploadParallelism;
+
+    @Value("${renditions.worker-threads:2}")
+    private int renditionThreads;
+
+    @Value("${renditions.queue-capacity:500}")
+    private int renditionQueueCapacity;
+
+    /**
+     * Pool acotado compartido por todas las subidas multipart a S3.
+     * Cuando la cola se llena, el hilo que sube ejecuta la parte él mismo (backpressure).
+     * Con hilos virtuales cada parte tiene su propio hilo y el límite de concurrencia bloquea al productor.
+     */
+    @Bean
+    public AsyncTaskExecutor partUploadExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("s3-part-", partUploadThreads, false);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(partUploadThreads);
+        executor.setMaxPoolSize(partUploadThreads);
+        executor.setQueueCapacity(partUploadThreads * 16);
+        executor.setThreadNamePrefix("s3-part-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * Workers del pipeline asíncrono de subida (moderación, almacenamiento y persistencia).
+     * Con la cola llena se rechaza el trabajo en lugar de bloquear el hilo de la petición.
+     * Con hilos virtuales cada trabajo aceptado arranca de inmediato y el límite cubre trabajos en curso y en cola.
+     */
+    @Bean
+    public AsyncTaskExecutor uploadJobExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("upload-job-", uploadJobThreads + uploadJobQueueCapacity, true);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(uploadJobThreads);
+        executor.setMaxPoolSize(uploadJobThreads);
+        executor.setQueueCapacity(uploadJobQueueCapacity);
+        executor.setThreadNamePrefix("upload-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Etapas que una subida especulativa ejecuta en paralelo (moderación y almacenamiento).
+     * Sin hilos libres, la etapa se ejecuta en el hilo que la lanza y la subida degrada a secuencial.
+     */
+    @Bean
+    public AsyncTaskExecutor uploadStageExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("upload-stage-", uploadStageThreads, false);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(uploadStageThreads);
+        executor.setMaxPoolSize(uploadStageThreads);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("upload-stage-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * Archivos de las subidas por lotes que se procesan a la vez, compartido por todos los lotes.
+     * Con los hilos ocupados, el hilo que reparte el lote procesa el archivo él mismo (backpressure).
+     */
+    @Bean
+    public AsyncTaskExecutor batchUploadExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("upload-batch-", batchUploadParallelism, false);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(batchUploadParallelism);
+        executor.setMaxPoolSize(batchUploadParallelism);
+        executor.setQueueCapacity(batchUploadParallelism * 4);
+        executor.setThreadNamePrefix("upload-batch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * Pool dedicado a generar miniaturas. Decodificar y escalar es trabajo de CPU,
+     * así que usa hilos de plataforma incluso en modo de hilos virtuales.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor renditionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(renditionThreads);
+        executor.setMaxPoolSize(renditionThreads);
+        executor.setQueueCapacity(renditionQueueCapacity);
+        executor.setThreadNamePrefix("rendition-");
+        executor.setThreadPriority(Thread.NORM_PRIORITY - 1);
+        return executor;
+    }
+
+    private static SimpleAsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix, int concurrencyLimit,
+                                                                 boolean rejectWhenLimitReached) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        executor.setRejectTasksWhenLimitReached(rejectWhenLimitReached);
+        executor.setTaskTerminationTimeout(30_000);
+        return executor;
+    }
+}
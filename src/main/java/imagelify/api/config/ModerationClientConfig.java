@@ -0,0 +1,115 @@
+package imagelify.api.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class ModerationClientConfig {
+
+    @Value("${sightengine.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${sightengine.http.connect-timeout:2s}")
+    private Duration connectTimeout;
+
+    @Value("${sightengine.http.read-timeout:10s}")
+    private Duration readTimeout;
+
+    @Value("${sightengine.http.connection-request-timeout:2s}")
+    private Duration connectionRequestTimeout;
+
+    @Value("${sightengine.http.keep-alive:30s}")
+    private Duration keepAlive;
+
+    @Value("${sightengine.http.connection-ttl:5m}")
+    private Duration connectionTtl;
+
+    @Value("${sightengine.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+
+    @Value("${sightengine.circuit-breaker.sliding-window-size:20}")
+    private int slidingWindowSize;
+
+    @Value("${sightengine.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${sightengine.circuit-breaker.wait-in-open-state:30s}")
+    private Duration waitInOpenState;
+
+    @Value("${sightengine.bulkhead.max-concurrent-calls:25}")
+    private int maxConcurrentCalls;
+
+    @Value("${sightengine.bulkhead.max-wait:500ms}")
+    private Duration bulkheadMaxWait;
+
+    /**
+     * Cliente HTTP con pool de conexiones persistentes y timeouts acotados para las llamadas de moderación.
+     * Una llamada colgada ya no puede retener un hilo de petición indefinidamente.
+     */
+    @Bean
+    public RestTemplate restTemplate() {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        // Total lifetime, so connections are eventually reopened (e.g. to follow DNS changes)
+                        .setTimeToLive(TimeValue.of(connectionTtl))
+                        .build())
+                .build();
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(connectionRequestTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                // Idle keep-alive: the server's Keep-Alive timeout, but never longer than ours
+                .setKeepAliveStrategy((response, context) -> {
+                    TimeValue offered = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return TimeValue.isPositive(offered) && offered.toMilliseconds() < keepAlive.toMillis()
+                            ? offered : TimeValue.of(keepAlive);
+                })
+                .evictIdleConnections(TimeValue.of(keepAlive))
+                .build();
+
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    @Bean
+    public CircuitBreaker sightengineCircuitBreaker() {
+        return CircuitBreaker.of("sightengine", CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .waitDurationInOpenState(waitInOpenState)
+                .build());
+    }
+
+    @Bean
+    public Bulkhead sightengineBulkhead() {
+        return Bulkhead.of("sightengine", BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(bulkheadMaxWait)
+                .build());
+    }
+}
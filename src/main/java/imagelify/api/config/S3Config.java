@@ -1,19 +1,34 @@
 package imagelify.api.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.util.unit.DataSize;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.transfer.s3.S3TransferManager;
 
 import java.net.URI;
+import java.time.Duration;
 
 @Configuration
 public class S3Config {
 
+    /**
+     * Cómo se entregan las URLs de lectura: el bucket es de lectura pública, o es privado y se firman las URLs.
+     */
+    public enum ReadUrlStrategy {
+        PUBLIC,
+        PRESIGNED
+    }
+
     @Value("${minio.url}")
     private String minioUrl;
 
@@ -23,9 +38,44 @@ public class S3Config {
     @Value("${minio.secret-key}")
     private String secretKey;
 
+    @Value("${minio.public-url}")
+    private String minioPublicUrl;
+
+    @Value("${storage.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${storage.http.connection-acquisition-timeout:10s}")
+    private Duration connectionAcquisitionTimeout;
+
+    @Value("${storage.http.socket-timeout:30s}")
+    private Duration socketTimeout;
+
+    @Value("${storage.crt.max-concurrency:64}")
+    private int crtMaxConcurrency;
+
+    @Value("${storage.crt.target-throughput-gbps:10}")
+    private double crtTargetThroughputGbps;
+
+    @Value("${storage.crt.connection-timeout:5s}")
+    private Duration crtConnectionTimeout;
+
+    @Value("${storage.multipart.threshold:16MB}")
+    private DataSize multipartThreshold;
+
+    @Value("${storage.multipart.part-size:8MB}")
+    private DataSize multipartPartSize;
+
     @Bean
     public S3Client s3Client() {
+        // With virtual threads the connection pool, not the thread count, bounds concurrent S3 calls
+        ApacheHttpClient.Builder httpClient = ApacheHttpClient.builder()
+                .maxConnections(maxConnections)
+                .connectionAcquisitionTimeout(connectionAcquisitionTimeout)
+                .socketTimeout(socketTimeout)
+                .tcpKeepAlive(true);
+
         return S3Client.builder()
+                .httpClientBuilder(httpClient)
                 .endpointOverride(URI.create(minioUrl))
                 .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
                 .region(Region.US_EAST_1) // Region is required, but for MinIO it can be any valid region
@@ -33,8 +83,44 @@ public class S3Config {
                 .build();
     }
 
+    /**
+     * Cliente S3 asíncrono sobre el runtime nativo (CRT), activo con {@code storage.client=CRT}.
+     * Reparte las subidas grandes en partes y mantiene hasta {@code max-concurrency} conexiones abiertas
+     * y reutilizadas, dimensionadas para alcanzar el rendimiento objetivo con pocos hilos.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    @ConditionalOnProperty(name = "storage.client", havingValue = "CRT")
+    public S3AsyncClient s3AsyncClient() {
+        return S3AsyncClient.crtBuilder()
+                .endpointOverride(URI.create(minioUrl))
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+                .region(Region.US_EAST_1)
+                .forcePathStyle(true)
+                .maxConcurrency(crtMaxConcurrency)
+                .targetThroughputInGbps(crtTargetThroughputGbps)
+                .thresholdInBytes(multipartThreshold.toBytes())
+                .minimumPartSizeInBytes(multipartPartSize.toBytes())
+                .httpConfiguration(http -> http.connectionTimeout(crtConnectionTimeout))
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.client", havingValue = "CRT")
+    public S3TransferManager s3TransferManager(S3AsyncClient s3AsyncClient) {
+        return S3TransferManager.builder().s3Client(s3AsyncClient).build();
+    }
+
+    /**
+     * Firma URLs para que los clientes suban al bucket o lean de él directamente. Usa la URL pública,
+     * ya que el host forma parte de la firma y es el que el cliente contactará.
+     */
+    @Bean
+    public S3Presigner s3Presigner() {
+        return S3Presigner.builder()
+                .endpointOverride(URI.create(minioPublicUrl))
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+                .region(Region.US_EAST_1)
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                .build();
     }
 }
@@ -0,0 +1,57 @@
+package imagelify.api.config;
+
+import imagelify.api.security.CaffeineUserDetailsCache;
+import imagelify.api.security.SpringCacheUserDetailsCache;
+import imagelify.api.security.UserDetailsCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class UserCacheConfig {
+
+    public enum Mode {
+        LOCAL,
+        DISTRIBUTED,
+        NONE
+    }
+
+    @Value("${security.user-cache.mode:LOCAL}")
+    private Mode mode;
+
+    @Value("${security.user-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${security.user-cache.ttl:60s}")
+    private Duration ttl;
+
+    @Value("${security.user-cache.cache-name:users}")
+    private String cacheName;
+
+    /**
+     * Caché de los usuarios que carga el filtro JWT, para que las peticiones autenticadas no consulten la base de datos.
+     * En modo {@code DISTRIBUTED} usa la caché {@code cache-name} del {@link CacheManager} de la aplicación.
+     */
+    @Bean
+    public UserDetailsCache userDetailsCache(MeterRegistry meterRegistry, ObjectProvider<CacheManager> cacheManager) {
+        return switch (mode) {
+            case LOCAL -> new CaffeineUserDetailsCache(maxSize, ttl, meterRegistry);
+            case DISTRIBUTED -> {
+                CacheManager manager = cacheManager.getIfAvailable();
+                Cache cache = manager == null ? null : manager.getCache(cacheName);
+                if (cache == null) {
+                    throw new IllegalStateException(
+                            "security.user-cache.mode=DISTRIBUTED requires a CacheManager providing cache '" + cacheName + "'");
+                }
+                yield new SpringCacheUserDetailsCache(cache);
+            }
+            case NONE -> UserDetailsCache.disabled();
+        };
+    }
+}
@@ -1,33 +1,224 @@
 package imagelify.api.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import imagelify.api.dto.BatchUploadResult;
+import imagelify.api.dto.DirectUploadCompleteRequest;
+import imagelify.api.dto.DirectUploadRequest;
+import imagelify.api.dto.ImageCursor;
+import imagelify.api.dto.ImageDeleteRequest;
+import imagelify.api.dto.ImageDeleteResult;
+import imagelify.api.dto.ImageSummary;
+import imagelify.api.dto.PresignedUpload;
 import imagelify.api.entity.Image;
+import imagelify.api.entity.ImageRendition;
+import imagelify.api.entity.UploadJob;
 import imagelify.api.entity.User;
+import imagelify.api.service.BatchUploadService;
+import imagelify.api.service.DirectUploadService;
 import imagelify.api.service.ImageService;
+import imagelify.api.service.RenditionService;
+import imagelify.api.service.StorageService;
+import imagelify.api.service.UploadJobService;
+import imagelify.api.upload.StagedUpload;
+import imagelify.api.upload.UploadStager;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/images")
 @RequiredArgsConstructor
 public class ImageController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final ImageService imageService;
+    private final UploadStager uploadStager;
+    private final UploadJobService uploadJobService;
+    private final DirectUploadService directUploadService;
+    private final BatchUploadService batchUploadService;
+    private final RenditionService renditionService;
+    private final StorageService storageService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${upload.batch.timeout:5m}")
+    private Duration batchTimeout;
 
     @PostMapping("/upload")
-    public ResponseEntity<Image> uploadImage(@RequestParam("file") MultipartFile file,
+    public ResponseEntity<ImageSummary> uploadImage(@RequestParam("file") MultipartFile file,
+                                                    @AuthenticationPrincipal User user) {
+        Image image = imageService.uploadImage(file, user);
+        return ResponseEntity.ok(summarize(image));
+    }
+
+    @PostMapping("/upload/stream")
+    public ResponseEntity<ImageSummary> uploadImageStream(InputStream body,
+                                                          @RequestParam("filename") String filename,
+                                                          @RequestHeader(value = HttpHeaders.CONTENT_TYPE,
+                                                                  defaultValue = MediaType.APPLICATION_OCTET_STREAM_VALUE) String contentType,
+                                                          @AuthenticationPrincipal User user) {
+        try (StagedUpload upload = uploadStager.stage(body, filename, contentType)) {
+            Image image = imageService.uploadImage(upload, user);
+            return ResponseEntity.ok(summarize(image));
+        }
+    }
+
+    @PostMapping("/upload/async")
+    public ResponseEntity<UploadJob> uploadImageAsync(@RequestParam("file") MultipartFile file,
+                                                      @AuthenticationPrincipal User user) throws IOException {
+        // The servlet container deletes multipart temp files when the request ends, so stage our own copy
+        StagedUpload upload = uploadStager.stage(file.getInputStream(), file.getOriginalFilename(), file.getContentType());
+        UploadJob job = uploadJobService.submit(upload, user);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/images/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    /**
+     * Sube varios archivos en una petición. La respuesta es NDJSON: una línea por archivo, en el orden
+     * en que terminan, con el código de estado que habría devuelto su subida individual.
+     */
+    @PostMapping("/upload/batch")
+    public ResponseEntity<ResponseBodyEmitter> uploadImageBatch(@RequestParam("files") List<MultipartFile> files,
+                                                                @AuthenticationPrincipal User user) {
+        // The multipart files stay available until the asynchronous response completes
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(batchTimeout.toMillis());
+        batchUploadService.uploadBatch(files, user, result -> send(emitter, result))
+                .whenComplete((done, error) -> {
+                    if (error == null) {
+                        emitter.complete();
+                    } else {
+                        emitter.completeWithError(error);
+                    }
+                });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+
+    // The stored URL is the public one; with presigned reads every URL handed out has to be signed
+    private ImageSummary summarize(Image image) {
+        return ImageSummary.of(image, readUrl(image));
+    }
+
+    private String readUrl(Image image) {
+        // An image without a key keeps the URL it was saved with
+        return image.getStorageKey() != null ? storageService.readUrl(image.getStorageKey()) : image.getS3Url();
+    }
+
+    private static void send(ResponseBodyEmitter emitter, BatchUploadResult result) {
+        try {
+            emitter.send(result, MediaType.APPLICATION_JSON);
+            emitter.send("\n", MediaType.TEXT_PLAIN);
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; the rest of the batch is still uploaded and saved
+        }
+    }
+
+    /**
+     * Primera fase de una subida directa: valida el plan y devuelve una URL prefirmada para subir al bucket.
+     */
+    @PostMapping("/uploads")
+    public ResponseEntity<PresignedUpload> initiateDirectUpload(@Valid @RequestBody DirectUploadRequest request,
+                                                                @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(directUploadService.initiate(request, user));
+    }
+
+    /**
+     * Segunda fase: el objeto ya está en el bucket; se verifica, se modera y se registra la imagen.
+     */
+    @PostMapping("/uploads/complete")
+    public ResponseEntity<ImageSummary> completeDirectUpload(@Valid @RequestBody DirectUploadCompleteRequest request,
+                                                             @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(summarize(directUploadService.complete(request.getKey(), user)));
+    }
+
+    /**
+     * Borra una imagen del usuario. La imagen deja de existir al responder; su archivo se borra del
+     * almacenamiento poco después, en segundo plano.
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteImage(@PathVariable Long id, @AuthenticationPrincipal User user) {
+        if (imageService.deleteImages(List.of(id), user.getId()).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Borra varias imágenes del usuario en una transacción.
+     */
+    @PostMapping("/delete")
+    public ResponseEntity<ImageDeleteResult> deleteImages(@Valid @RequestBody ImageDeleteRequest request,
+                                                          @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(new ImageDeleteResult(imageService.deleteImages(request.getIds(), user.getId())));
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<UploadJob> getUploadJob(@PathVariable String id, @AuthenticationPrincipal User user) {
+        Optional<UploadJob> job = uploadJobService.getJob(id, user.getId());
+        job.filter(found -> found.getImageId() != null)
+                .flatMap(found -> imageService.getImage(found.getImageId(), user.getId()))
+                .ifPresent(image -> job.get().setImageUrl(readUrl(image)));
+        return ResponseEntity.of(job);
+    }
+
+    @GetMapping("/{id}/renditions/{name}")
+    public ResponseEntity<Void> getRendition(@PathVariable Long id, @PathVariable String name,
                                              @AuthenticationPrincipal User user) {
-        Image image = imageService.uploadImage(file, user.getId());
-        return ResponseEntity.ok(image);
+        Optional<Image> image = imageService.getImage(id, user.getId());
+        if (image.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        // Until the rendition exists (it is generated on first request if missing), serve the original
+        String key = renditionService.getRendition(image.get(), name)
+                .map(ImageRendition::getStorageKey)
+                .orElse(image.get().getStorageKey());
+        // An image without a key has no renditions either; it keeps the URL it was saved with
+        String url = key != null ? storageService.readUrl(key) : image.get().getS3Url();
+        return ResponseEntity.status(HttpStatus.FOUND).location(URI.create(url)).build();
     }
 
+    /**
+     * Lista las imágenes del usuario por páginas, de la más reciente a la más antigua.
+     * La cabecera {@code X-Next-Cursor} contiene el cursor de la siguiente página, si la hay.
+     */
     @GetMapping
-    public ResponseEntity<List<Image>> getUserImages(@AuthenticationPrincipal User user) {
-        List<Image> images = imageService.getImagesByUserId(user.getId());
-        return ResponseEntity.ok(images);
+    public ResponseEntity<StreamingResponseBody> getUserImages(@RequestParam(defaultValue = "50") int limit,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @AuthenticationPrincipal User user) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        ImageCursor after = cursor == null ? null : ImageCursor.decode(cursor);
+        List<ImageSummary> page = imageService.getImagePage(user.getId(), after, pageSize);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (page.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, ImageCursor.after(page.getLast()).encode());
+        }
+        return response.body(out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                for (ImageSummary image : page) {
+                    objectMapper.writeValue(generator, image);
+                }
+                generator.writeEndArray();
+            }
+        });
     }
 }
@@ -0,0 +1,19 @@
+package imagelify.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Resultado de un archivo de una subida por lotes, emitido en cuanto ese archivo termina.
+ * {@code status} es el código HTTP que habría devuelto la subida individual.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchUploadResult(int index, String filename, int status, Long imageId, String url, String error) {
+
+    public static BatchUploadResult created(int index, String filename, Long imageId, String url) {
+        return new BatchUploadResult(index, filename, 201, imageId, url, null);
+    }
+
+    public static BatchUploadResult failed(int index, String filename, int status, String error) {
+        return new BatchUploadResult(index, filename, status, null, null, error);
+    }
+}
@@ -0,0 +1,10 @@
+package imagelify.api.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class DirectUploadCompleteRequest {
+    @NotBlank
+    private String key;
+}
@@ -0,0 +1,19 @@
+package imagelify.api.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class DirectUploadRequest {
+    @NotBlank
+    @Size(max = 200)
+    private String filename;
+
+    @NotBlank
+    private String contentType;
+
+    @Positive
+    private long size;
+}
@@ -0,0 +1,35 @@
+package imagelify.api.dto;
+
+import imagelify.api.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición en el listado de imágenes de un usuario (orden descendente por fecha de subida e id).
+ * Se envía al cliente como un token opaco.
+ */
+public record ImageCursor(LocalDateTime uploadDate, Long id) {
+
+    public static ImageCursor after(ImageSummary last) {
+        return new ImageCursor(last.uploadDate(), last.id());
+    }
+
+    public String encode() {
+        String raw = uploadDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ImageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new ImageCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor: " + token);
+        }
+    }
+}
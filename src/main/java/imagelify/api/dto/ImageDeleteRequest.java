@@ -0,0 +1,15 @@
+package imagelify.api.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ImageDeleteRequest {
+    @NotEmpty
+    @Size(max = 1000)
+    private List<@NotNull Long> ids;
+}
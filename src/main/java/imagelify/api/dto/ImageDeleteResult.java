@@ -0,0 +1,9 @@
+package imagelify.api.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de un borrado múltiple: los ids que no aparecen no existían o eran de otro usuario.
+ */
+public record ImageDeleteResult(List<Long> deleted) {
+}
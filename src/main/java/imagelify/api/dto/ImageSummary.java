@@ -0,0 +1,26 @@
+package imagelify.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import imagelify.api.entity.Image;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vista reducida de una imagen para los listados: solo las columnas que necesita el cliente.
+ * La clave de almacenamiento no se expone; sirve para firmar la URL de lectura.
+ */
+public record ImageSummary(Long id, String filename, String url, Long fileSize, String mimeType,
+                           LocalDateTime uploadDate, @JsonIgnore String storageKey) {
+
+    /**
+     * Vista de una imagen recién subida, con la URL de lectura ya resuelta (firmada, si las lecturas son prefirmadas).
+     */
+    public static ImageSummary of(Image image, String url) {
+        return new ImageSummary(image.getId(), image.getFilename(), url, image.getFileSize(), image.getMimeType(),
+                image.getUploadDate(), image.getStorageKey());
+    }
+
+    public ImageSummary withUrl(String url) {
+        return new ImageSummary(id, filename, url, fileSize, mimeType, uploadDate, storageKey);
+    }
+}
@@ -0,0 +1,29 @@
+package imagelify.api.dto;
+
+import imagelify.api.entity.ModerationStatus;
+
+/**
+ * Resultado de la moderación de una imagen.
+ * Un veredicto no verificado se emite al fallar el proveedor con la política fail-open y nunca se cachea.
+ */
+public record ModerationVerdict(boolean approved, String reason, boolean verified) {
+
+    public static ModerationVerdict approve() {
+        return new ModerationVerdict(true, null, true);
+    }
+
+    public static ModerationVerdict reject(String reason) {
+        return new ModerationVerdict(false, reason, true);
+    }
+
+    public static ModerationVerdict unverified(String reason) {
+        return new ModerationVerdict(true, reason, false);
+    }
+
+    /**
+     * Estado con el que se guarda una imagen aceptada con este veredicto.
+     */
+    public ModerationStatus status() {
+        return verified ? ModerationStatus.VERIFIED : ModerationStatus.UNVERIFIED;
+    }
+}
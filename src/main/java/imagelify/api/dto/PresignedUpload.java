@@ -0,0 +1,11 @@
+package imagelify.api.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * URL prefirmada para que el cliente suba el archivo directamente al Object Storage.
+ * La petición debe usar el método y las cabeceras indicados, que forman parte de la firma.
+ */
+public record PresignedUpload(String key, String url, String method, Map<String, String> headers, Instant expiresAt) {
+}
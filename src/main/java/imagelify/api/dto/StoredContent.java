@@ -0,0 +1,15 @@
+package imagelify.api.dto;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Contenido de un objeto del Object Storage abierto para lectura. Debe cerrarse para liberar la conexión.
+ */
+public record StoredContent(InputStream stream, String contentType, long size) implements AutoCloseable {
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+}
@@ -0,0 +1,7 @@
+package imagelify.api.dto;
+
+/**
+ * Objeto guardado en el Object Storage: su clave dentro del bucket y la URL pública.
+ */
+public record StoredObject(String key, String url) {
+}
@@ -0,0 +1,35 @@
+package imagelify.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Confirmación de una subida directa. La clave primaria es la clave del objeto subido, de modo que solo una
+ * confirmación puede registrarlo; las demás devuelven la imagen que esa registró.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "direct_uploads")
+public class DirectUpload {
+    @Id
+    @Column(name = "storage_key")
+    private String storageKey;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Null while the upload is being registered
+    @Column(name = "image_id")
+    private Long imageId;
+
+    @Column(name = "claimed_at", nullable = false)
+    private LocalDateTime claimedAt;
+}
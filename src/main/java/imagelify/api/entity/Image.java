@@ -1,22 +1,35 @@
 package imagelify.api.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "images")
+@Table(name = "images", indexes = {
+        @Index(name = "idx_images_content_hash", columnList = "content_hash"),
+        @Index(name = "idx_images_user_upload_date", columnList = "user_id, upload_date, id"),
+        @Index(name = "idx_images_storage_key", columnList = "storage_key"),
+        @Index(name = "idx_images_moderation_status", columnList = "moderation_status, content_hash")
+})
 public class Image {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Ids are reserved in blocks, unlike IDENTITY, so Hibernate can send inserts as JDBC batches
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "images_ids")
+    @TableGenerator(name = "images_ids", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "images", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -25,16 +38,38 @@ public class Image {
     @Column(nullable = false)
     private String s3Url;
 
+    private String storageKey;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // Anything not explicitly verified is treated as unmoderated
+    @Enumerated(EnumType.STRING)
+    @Column(name = "moderation_status", nullable = false, length = 16)
+    @Builder.Default
+    private ModerationStatus moderationStatus = ModerationStatus.UNVERIFIED;
+
     @Column(nullable = false)
     private Long fileSize;
 
     @Column(nullable = false)
     private String mimeType;
 
-    @Column(nullable = false)
+    @Column(name = "upload_date", nullable = false)
     private LocalDateTime uploadDate;
 
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
+
+    // Renditions are served by /api/images/{id}/renditions/{name}; the lazy list cannot load once the session is closed
+    @JsonIgnore
+    @OneToMany(mappedBy = "image", fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Builder.Default
+    private List<ImageRendition> renditions = new ArrayList<>();
 }
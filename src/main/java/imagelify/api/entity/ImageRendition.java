@@ -0,0 +1,51 @@
+package imagelify.api.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "image_renditions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_image_renditions_image_name", columnNames = {"image_id", "name"}),
+        indexes = @Index(name = "idx_image_renditions_storage_key", columnList = "storage_key"))
+public class ImageRendition {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "image_renditions_ids")
+    @TableGenerator(name = "image_renditions_ids", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "image_renditions", allocationSize = 50)
+    private Long id;
+
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "image_id", nullable = false)
+    private Image image;
+
+    @Column(nullable = false, length = 32)
+    private String name;
+
+    @Column(nullable = false)
+    private String storageKey;
+
+    @Column(nullable = false)
+    private String url;
+
+    @Column(nullable = false)
+    private String mimeType;
+
+    @Column(nullable = false)
+    private Integer maxDimension;
+
+    @Column(nullable = false)
+    private Long fileSize;
+}
@@ -0,0 +1,29 @@
+package imagelify.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "moderation_results")
+public class ModerationResult {
+    @Id
+    @Column(length = 64)
+    private String contentHash;
+
+    @Column(nullable = false)
+    private Boolean approved;
+
+    private String reason;
+
+    @Column(nullable = false)
+    private LocalDateTime checkedAt;
+}
@@ -0,0 +1,10 @@
+package imagelify.api.entity;
+
+/**
+ * VERIFIED: el proveedor de moderación aprobó el contenido. UNVERIFIED: se aceptó sin moderar porque el proveedor
+ * no respondía (sightengine.failure-policy=OPEN) y queda pendiente de volver a moderarse.
+ */
+public enum ModerationStatus {
+    VERIFIED,
+    UNVERIFIED
+}
@@ -1,5 +1,6 @@
 package imagelify.api.entity;
 
+import imagelify.api.security.UserCacheInvalidationListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -11,10 +12,13 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@EntityListeners(UserCacheInvalidationListener.class)
 @Table(name = "plans")
 public class Plan {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "plans_ids")
+    @TableGenerator(name = "plans_ids", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "plans", allocationSize = 10)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -0,0 +1,36 @@
+package imagelify.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Objeto del almacenamiento pendiente de borrar. Se encola al borrar una imagen, en la misma transacción,
+ * y el reaper lo elimina del bucket más tarde si ninguna imagen ni miniatura lo referencia ya.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "storage_deletions", indexes = {
+        @Index(name = "idx_storage_deletions_requested_at", columnList = "requested_at"),
+        @Index(name = "idx_storage_deletions_storage_key", columnList = "storage_key")
+})
+public class StorageDeletion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "storage_deletions_ids")
+    @TableGenerator(name = "storage_deletions_ids", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "storage_deletions", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "storage_key", nullable = false)
+    private String storageKey;
+
+    @Column(name = "requested_at", nullable = false)
+    private LocalDateTime requestedAt;
+}
@@ -0,0 +1,45 @@
+package imagelify.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "upload_jobs", indexes = @Index(name = "idx_upload_jobs_user", columnList = "user_id"))
+public class UploadJob {
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String filename;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private UploadJobStatus status;
+
+    private Long imageId;
+
+    // Read URL of the uploaded image, resolved when the job is returned to its owner
+    @Transient
+    private String imageUrl;
+
+    @Column(length = 1024)
+    private String errorMessage;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime completedAt;
+}
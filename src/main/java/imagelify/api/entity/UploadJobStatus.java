@@ -0,0 +1,8 @@
+package imagelify.api.entity;
+
+public enum UploadJobStatus {
+    PENDING,
+    PROCESSING,
+    COMPLETED,
+    FAILED
+}
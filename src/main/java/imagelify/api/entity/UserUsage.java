@@ -0,0 +1,28 @@
+package imagelify.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Contadores de uso de cada usuario, mantenidos al subir para que la cuota no dependa de contar sus imágenes.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "user_usage")
+public class UserUsage {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long imageCount;
+
+    @Column(nullable = false)
+    private Long totalBytes;
+}
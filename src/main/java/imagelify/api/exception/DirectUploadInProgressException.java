@@ -0,0 +1,11 @@
+package imagelify.api.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class DirectUploadInProgressException extends RuntimeException {
+    public DirectUploadInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package imagelify.api.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class DirectUploadNotFoundException extends RuntimeException {
+    public DirectUploadNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -22,6 +22,41 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(createErrorResponse(ex.getMessage(), HttpStatus.FORBIDDEN), HttpStatus.FORBIDDEN);
     }
 
+    @ExceptionHandler(InappropriateContentException.class)
+    public ResponseEntity<Object> handleInappropriateContentException(InappropriateContentException ex, WebRequest request) {
+        return new ResponseEntity<>(createErrorResponse(ex.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY), HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @ExceptionHandler(ModerationUnavailableException.class)
+    public ResponseEntity<Object> handleModerationUnavailableException(ModerationUnavailableException ex, WebRequest request) {
+        return new ResponseEntity<>(createErrorResponse(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(UploadQueueFullException.class)
+    public ResponseEntity<Object> handleUploadQueueFullException(UploadQueueFullException ex, WebRequest request) {
+        return new ResponseEntity<>(createErrorResponse(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Object> handleInvalidCursorException(InvalidCursorException ex, WebRequest request) {
+        return new ResponseEntity<>(createErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(DirectUploadNotFoundException.class)
+    public ResponseEntity<Object> handleDirectUploadNotFoundException(DirectUploadNotFoundException ex, WebRequest request) {
+        return new ResponseEntity<>(createErrorResponse(ex.getMessage(), HttpStatus.NOT_FOUND), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(DirectUploadInProgressException.class)
+    public ResponseEntity<Object> handleDirectUploadInProgressException(DirectUploadInProgressException ex, WebRequest request) {
+        return new ResponseEntity<>(createErrorResponse(ex.getMessage(), HttpStatus.CONFLICT), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(BatchTooLargeException.class)
+    public ResponseEntity<Object> handleBatchTooLargeException(BatchTooLargeException ex, WebRequest request) {
+        return new ResponseEntity<>(createErrorResponse(ex.getMessage(), HttpStatus.PAYLOAD_TOO_LARGE), HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
     private Map<String, Object> createErrorResponse(String message, HttpStatus status) {
         return Map.of(
                 "timestamp", LocalDateTime.now(),
@@ -0,0 +1,11 @@
+package imagelify.api.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class InappropriateContentException extends RuntimeException {
+    public InappropriateContentException(String message) {
+        super(message);
+    }
+}
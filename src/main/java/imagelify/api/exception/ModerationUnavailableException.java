@@ -0,0 +1,15 @@
+package imagelify.api.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ModerationUnavailableException extends RuntimeException {
+    public ModerationUnavailableException(String message) {
+        super(message);
+    }
+
+    public ModerationUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
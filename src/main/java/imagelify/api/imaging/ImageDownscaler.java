@@ -0,0 +1,140 @@
+package imagelify.api.imaging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.Node;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * Genera versiones reducidas de una imagen con memoria acotada: el decodificador lee la imagen
+ * submuestreada, de modo que el raster en memoria depende del tamaño de salida y no del original.
+ */
+@Component
+@Slf4j
+public class ImageDownscaler {
+
+    private static final String PNG_METADATA_FORMAT = "javax_imageio_png_1.0";
+
+    /**
+     * Reduce la imagen para que su lado mayor no supere {@code maxDimension} y la escribe en un archivo temporal.
+     * @param source Flujo con la imagen original.
+     * @param maxDimension Lado máximo en píxeles de la imagen resultante.
+     * @param format Formato de salida soportado por ImageIO (por ejemplo "jpg" o "png").
+     * @return El archivo generado, o vacío si la imagen no se puede decodificar o ya es suficientemente pequeña.
+     *         El llamador debe borrar el archivo.
+     */
+    public Optional<Path> downscale(InputStream source, int maxDimension, String format) throws IOException {
+        return downscale(source, maxDimension, format, false);
+    }
+
+    /**
+     * Igual que {@link #downscale(InputStream, int, String)}, pero devuelve vacío si la imagen es animada
+     * (GIF, APNG...): la versión reducida solo conserva el primer fotograma.
+     */
+    public Optional<Path> downscaleStill(InputStream source, int maxDimension, String format) throws IOException {
+        return downscale(source, maxDimension, format, true);
+    }
+
+    private Optional<Path> downscale(InputStream source, int maxDimension, String format, boolean stillOnly)
+            throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+            if (input == null) {
+                return Optional.empty();
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return Optional.empty();
+            }
+            ImageReader reader = readers.next();
+            try {
+                // Counting frames needs to seek back, and APNG animation is only visible in the chunk metadata
+                reader.setInput(input, !stillOnly, !stillOnly);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (Math.max(width, height) <= maxDimension) {
+                    return Optional.empty();
+                }
+                if (stillOnly && isAnimated(reader)) {
+                    return Optional.empty();
+                }
+
+                // Rounded up, so the decoded raster is never larger than the target and stays bounded for huge originals
+                int subsampling = Math.ceilDiv(Math.max(width, height), maxDimension);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage decoded = reader.read(0, param);
+
+                BufferedImage scaled = scale(decoded, maxDimension, !"jpg".equals(format) && !"jpeg".equals(format));
+                decoded.flush();
+
+                Path target = Files.createTempFile("downscaled-", "." + format);
+                try (OutputStream out = Files.newOutputStream(target)) {
+                    if (!ImageIO.write(scaled, format, out)) {
+                        Files.deleteIfExists(target);
+                        log.warn("No ImageIO writer available for format '{}'", format);
+                        return Optional.empty();
+                    }
+                }
+                return Optional.of(target);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static boolean isAnimated(ImageReader reader) throws IOException {
+        if (reader.getNumImages(true) > 1) {
+            return true;
+        }
+        // The JDK PNG reader decodes only the default image of an APNG and keeps its animation chunks as unknown ones
+        IIOMetadata metadata = reader.getImageMetadata(0);
+        if (metadata == null || !PNG_METADATA_FORMAT.equals(metadata.getNativeMetadataFormatName())) {
+            return false;
+        }
+        Node root = metadata.getAsTree(PNG_METADATA_FORMAT);
+        for (Node chunks = root.getFirstChild(); chunks != null; chunks = chunks.getNextSibling()) {
+            if ("UnknownChunks".equals(chunks.getNodeName())) {
+                for (Node chunk = chunks.getFirstChild(); chunk != null; chunk = chunk.getNextSibling()) {
+                    Node type = chunk.getAttributes().getNamedItem("type");
+                    if (type != null && "acTL".equals(type.getNodeValue())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static BufferedImage scale(BufferedImage source, int maxDimension, boolean keepAlpha) {
+        double ratio = (double) maxDimension / Math.max(source.getWidth(), source.getHeight());
+        int width = Math.max(1, (int) Math.round(source.getWidth() * Math.min(1.0, ratio)));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * Math.min(1.0, ratio)));
+
+        BufferedImage target = new BufferedImage(width, height,
+                keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+}
@@ -0,0 +1,46 @@
+package imagelify.api.repository;
+
+import imagelify.api.entity.DirectUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface DirectUploadRepository extends JpaRepository<DirectUpload, String> {
+
+    // A plain insert committed on its own: a concurrent confirmation of the same key waits on the row and then
+    // fails with a DataIntegrityViolationException, whatever the driver reports as affected rows
+    @Transactional
+    @Modifying
+    @Query("""
+            insert into DirectUpload (storageKey, userId, claimedAt)
+            values (:storageKey, :userId, :claimedAt)""")
+    void claim(@Param("storageKey") String storageKey,
+               @Param("userId") Long userId,
+               @Param("claimedAt") LocalDateTime claimedAt);
+
+    // Matches only a claim still unfinished after the cutoff, so the count is exact even when found rows are reported
+    @Transactional
+    @Modifying
+    @Query("""
+            update DirectUpload d set d.claimedAt = :claimedAt
+            where d.storageKey = :storageKey and d.userId = :userId and d.imageId is null and d.claimedAt < :cutoff""")
+    int takeOver(@Param("storageKey") String storageKey,
+                 @Param("userId") Long userId,
+                 @Param("claimedAt") LocalDateTime claimedAt,
+                 @Param("cutoff") LocalDateTime cutoff);
+
+    @Transactional
+    @Modifying
+    @Query("update DirectUpload d set d.imageId = :imageId where d.storageKey = :storageKey")
+    int complete(@Param("storageKey") String storageKey, @Param("imageId") Long imageId);
+
+    // Only the claim this confirmation holds; a confirmation that took it over keeps its own
+    @Transactional
+    @Modifying
+    @Query("delete from DirectUpload d where d.storageKey = :storageKey and d.claimedAt = :claimedAt")
+    int release(@Param("storageKey") String storageKey, @Param("claimedAt") LocalDateTime claimedAt);
+}
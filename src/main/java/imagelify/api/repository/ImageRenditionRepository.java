@@ -0,0 +1,29 @@
+package imagelify.api.repository;
+
+import imagelify.api.entity.Image;
+import imagelify.api.entity.ImageRendition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public interface ImageRenditionRepository extends JpaRepository<ImageRendition, Long> {
+    List<ImageRendition> findByImage(Image image);
+    Optional<ImageRendition> findByImageAndName(Image image, String name);
+    List<ImageRendition> findByImageStorageKey(String storageKey);
+
+    @Query("select r.storageKey from ImageRendition r where r.image.id in :imageIds")
+    List<String> findStorageKeysByImageIds(@Param("imageIds") Collection<Long> imageIds);
+
+    @Query("select distinct r.storageKey from ImageRendition r where r.storageKey in :keys")
+    Set<String> findStorageKeysIn(@Param("keys") Collection<String> keys);
+
+    @Modifying
+    @Query("delete from ImageRendition r where r.image.id in :imageIds")
+    int deleteByImageIds(@Param("imageIds") Collection<Long> imageIds);
+}
@@ -1,12 +1,74 @@
 package imagelify.api.repository;
 
+import imagelify.api.dto.ImageSummary;
 import imagelify.api.entity.Image;
-import imagelify.api.entity.User;
+import imagelify.api.entity.ModerationStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 public interface ImageRepository extends JpaRepository<Image, Long> {
-    List<Image> findByUser(User user);
-    long countByUser(User user);
+    long countByUserId(Long userId);
+    // Only a moderated copy may stand in for a new upload: unverified ones are moderated again
+    Optional<Image> findFirstByContentHashAndModerationStatus(String contentHash, ModerationStatus moderationStatus);
+    Optional<Image> findByIdAndUserId(Long id, Long userId);
+    Optional<Image> findFirstByStorageKey(String storageKey);
+
+    @Query("select distinct i.contentHash from Image i where i.moderationStatus = :status and i.contentHash is not null")
+    List<String> findContentHashesByModerationStatus(@Param("status") ModerationStatus status, Limit limit);
+
+    List<Image> findByContentHashAndModerationStatus(String contentHash, ModerationStatus moderationStatus);
+
+    @Transactional
+    @Modifying
+    @Query("update Image i set i.moderationStatus = :to where i.contentHash = :contentHash and i.moderationStatus = :from")
+    int updateModerationStatus(@Param("contentHash") String contentHash,
+                               @Param("from") ModerationStatus from,
+                               @Param("to") ModerationStatus to);
+
+    @Query("select distinct i.storageKey from Image i where i.storageKey in :keys")
+    Set<String> findStorageKeysIn(@Param("keys") Collection<String> keys);
+
+    // Locked, so that two concurrent deletions of the same image release its quota only once
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Image i where i.id in :ids and i.user.id = :userId")
+    List<Image> findForDeletion(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    @Query("select coalesce(sum(i.fileSize), 0) from Image i where i.user.id = :userId")
+    long sumFileSizeByUserId(@Param("userId") Long userId);
+
+    // Keyset pagination over idx_images_user_upload_date: cost depends on the page size, not on the offset.
+    // Read-only transactions, so that they can be routed to the read replica (see ReadReplica)
+    @Transactional(readOnly = true)
+    @Query("""
+            select new imagelify.api.dto.ImageSummary(i.id, i.filename, i.s3Url, i.fileSize, i.mimeType, i.uploadDate,
+                    i.storageKey)
+            from Image i
+            where i.user.id = :userId
+            order by i.uploadDate desc, i.id desc""")
+    List<ImageSummary> findFirstPage(@Param("userId") Long userId, Limit limit);
+
+    @Transactional(readOnly = true)
+    @Query("""
+            select new imagelify.api.dto.ImageSummary(i.id, i.filename, i.s3Url, i.fileSize, i.mimeType, i.uploadDate,
+                    i.storageKey)
+            from Image i
+            where i.user.id = :userId
+              and (i.uploadDate < :uploadDate or (i.uploadDate = :uploadDate and i.id < :id))
+            order by i.uploadDate desc, i.id desc""")
+    List<ImageSummary> findPageAfter(@Param("userId") Long userId,
+                                     @Param("uploadDate") LocalDateTime uploadDate,
+                                     @Param("id") Long id,
+                                     Limit limit);
 }
@@ -0,0 +1,7 @@
+package imagelify.api.repository;
+
+import imagelify.api.entity.ModerationResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ModerationResultRepository extends JpaRepository<ModerationResult, String> {
+}
@@ -0,0 +1,35 @@
+package imagelify.api.repository;
+
+import java.util.function.Supplier;
+
+/**
+ * Marca las consultas que pueden leerse de la réplica ({@code datasource.replica.enabled}), que puede ir
+ * unos instantes por detrás del primario. Solo aplica a transacciones de solo lectura que empiezan dentro
+ * de {@link #query}; sin réplica configurada, todo va al primario.
+ */
+public final class ReadReplica {
+
+    private static final ThreadLocal<Boolean> REQUESTED = ThreadLocal.withInitial(() -> false);
+
+    private ReadReplica() {
+    }
+
+    /**
+     * Ejecuta la consulta permitiendo que se lea de la réplica.
+     */
+    public static <T> T query(Supplier<T> query) {
+        boolean outer = REQUESTED.get();
+        REQUESTED.set(true);
+        try {
+            return query.get();
+        } finally {
+            if (!outer) {
+                REQUESTED.remove();
+            }
+        }
+    }
+
+    public static boolean isRequested() {
+        return REQUESTED.get();
+    }
+}
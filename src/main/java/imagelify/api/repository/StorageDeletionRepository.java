@@ -0,0 +1,34 @@
+package imagelify.api.repository;
+
+import imagelify.api.entity.StorageDeletion;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public interface StorageDeletionRepository extends JpaRepository<StorageDeletion, Long> {
+
+    // Locked until the reaper commits, skipping rows another instance is already reaping (SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select d from StorageDeletion d where d.requestedAt < :before order by d.requestedAt, d.id")
+    List<StorageDeletion> findDue(@Param("before") LocalDateTime before, Limit limit);
+
+    @Query("select distinct d.storageKey from StorageDeletion d where d.storageKey in :keys")
+    Set<String> findStorageKeysIn(@Param("keys") Collection<String> keys);
+
+    // Waits for a reaper holding any of these rows, so the object is deleted before it is uploaded again
+    @Modifying
+    @Query("delete from StorageDeletion d where d.storageKey like :prefix%")
+    int deleteByStorageKeyPrefix(@Param("prefix") String prefix);
+}
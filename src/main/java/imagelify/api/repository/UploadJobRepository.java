@@ -0,0 +1,34 @@
+package imagelify.api.repository;
+
+import imagelify.api.entity.UploadJob;
+import imagelify.api.entity.UploadJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+public interface UploadJobRepository extends JpaRepository<UploadJob, String> {
+    Optional<UploadJob> findByIdAndUserId(String id, Long userId);
+
+    // Jobs whose worker is gone: nothing else moves them out of PENDING or PROCESSING
+    @Transactional
+    @Modifying
+    @Query("""
+            update UploadJob j set j.status = :failed, j.errorMessage = :reason, j.completedAt = :now
+            where j.status in :unfinished and j.createdAt < :before""")
+    int failUnfinishedCreatedBefore(@Param("unfinished") Collection<UploadJobStatus> unfinished,
+                                    @Param("before") LocalDateTime before,
+                                    @Param("failed") UploadJobStatus failed,
+                                    @Param("reason") String reason,
+                                    @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from UploadJob j where j.completedAt < :before")
+    int deleteCompletedBefore(@Param("before") LocalDateTime before);
+}
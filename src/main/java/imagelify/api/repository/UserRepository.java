@@ -1,10 +1,13 @@
 package imagelify.api.repository;
 
 import imagelify.api.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    // The principal is used for plan checks on every upload, so load its plan in the same query
+    @EntityGraph(attributePaths = "plan")
     Optional<User> findByUsername(String username);
 }
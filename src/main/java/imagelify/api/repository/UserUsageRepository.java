@@ -0,0 +1,38 @@
+package imagelify.api.repository;
+
+import imagelify.api.entity.UserUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface UserUsageRepository extends JpaRepository<UserUsage, Long> {
+
+    // Check and increment in one statement: the row lock serializes concurrent uploads of the same user
+    @Modifying
+    @Query("""
+            update UserUsage u
+            set u.imageCount = u.imageCount + :images, u.totalBytes = u.totalBytes + :bytes
+            where u.userId = :userId and (:maxImages is null or u.imageCount + :images <= :maxImages)""")
+    int reserve(@Param("userId") Long userId,
+                @Param("images") int images,
+                @Param("bytes") long bytes,
+                @Param("maxImages") Integer maxImages);
+
+    @Modifying
+    @Query("""
+            update UserUsage u
+            set u.imageCount = u.imageCount - :images, u.totalBytes = greatest(u.totalBytes - :bytes, 0)
+            where u.userId = :userId and u.imageCount >= :images""")
+    int release(@Param("userId") Long userId, @Param("images") int images, @Param("bytes") long bytes);
+
+    // Creates the counters of a user; if they already exist (e.g. a concurrent seed) they are left as they are
+    @Modifying
+    @Query("""
+            insert into UserUsage (userId, imageCount, totalBytes)
+            values (:userId, :imageCount, :totalBytes)
+            on conflict do nothing""")
+    int initialize(@Param("userId") Long userId,
+                   @Param("imageCount") long imageCount,
+                   @Param("totalBytes") long totalBytes);
+}
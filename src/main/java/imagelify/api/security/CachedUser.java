@@ -0,0 +1,35 @@
+package imagelify.api.security;
+
+import imagelify.api.entity.Plan;
+import imagelify.api.entity.User;
+
+import java.io.Serializable;
+
+/**
+ * Copia serializable y sin contraseña de un usuario autenticado, para las cachés compartidas fuera del proceso.
+ * Guarda solo lo que usan las peticiones autenticadas: identidad, estado y los límites de su plan.
+ */
+public record CachedUser(Long id, String username, boolean enabled,
+                         Long planId, String planName, Integer planMaxImages) implements Serializable {
+
+    public static CachedUser of(User user) {
+        Plan plan = user.getPlan();
+        return new CachedUser(user.getId(), user.getUsername(), user.isEnabled(),
+                plan == null ? null : plan.getId(),
+                plan == null ? null : plan.getName(),
+                plan == null ? null : plan.getMaxImages());
+    }
+
+    /**
+     * Reconstruye el principal de la petición. Es una instancia desconectada de la sesión y sin contraseña,
+     * válida para autorizar peticiones pero no para autenticar credenciales ni para guardarse.
+     */
+    public User toUser() {
+        return User.builder()
+                .id(id)
+                .username(username)
+                .isEnabled(enabled)
+                .plan(planId == null ? null : Plan.builder().id(planId).name(planName).maxImages(planMaxImages).build())
+                .build();
+    }
+}
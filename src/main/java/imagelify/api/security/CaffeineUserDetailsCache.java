@@ -0,0 +1,46 @@
+package imagelify.api.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+
+/**
+ * Caché local de usuarios con expulsión por tamaño y TTL corto. Cada nodo mantiene la suya,
+ * así que los cambios hechos en otro nodo tardan como mucho el TTL en verse.
+ */
+public class CaffeineUserDetailsCache implements UserDetailsCache {
+
+    private final Cache<String, UserDetails> users;
+
+    public CaffeineUserDetailsCache(long maxSize, Duration ttl, MeterRegistry meterRegistry) {
+        this.users = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .<String, UserDetails>build(), "auth.users");
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        return users.getIfPresent(username);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        users.put(user.getUsername(), user);
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        users.invalidate(username);
+    }
+
+    @Override
+    public void removeAll() {
+        users.invalidateAll();
+    }
+}
@@ -0,0 +1,43 @@
+package imagelify.api.security;
+
+import imagelify.api.entity.User;
+import org.springframework.cache.Cache;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Caché de usuarios sobre una {@link Cache} de Spring (por ejemplo Redis), compartida por todos los nodos
+ * para que una invalidación se vea en todo el clúster. El TTL lo define la configuración de esa caché.
+ * Se guarda un {@link CachedUser}, sin la contraseña ni las entidades JPA del usuario.
+ */
+public class SpringCacheUserDetailsCache implements UserDetailsCache {
+
+    private final Cache cache;
+
+    public SpringCacheUserDetailsCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        CachedUser cached = cache.get(username, CachedUser.class);
+        return cached == null ? null : cached.toUser();
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        // Only the application's own users can be rebuilt from the cached copy
+        if (user instanceof User entity) {
+            cache.put(user.getUsername(), CachedUser.of(entity));
+        }
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        cache.evict(username);
+    }
+
+    @Override
+    public void removeAll() {
+        cache.clear();
+    }
+}
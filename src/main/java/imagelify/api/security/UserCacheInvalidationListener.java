@@ -0,0 +1,33 @@
+package imagelify.api.security;
+
+import imagelify.api.entity.Plan;
+import imagelify.api.entity.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Invalida la caché de usuarios cuando cambia un usuario o un plan. Hibernate la instancia
+ * a través del contenedor de beans de Spring, que le inyecta la caché.
+ */
+public class UserCacheInvalidationListener {
+
+    private final ObjectProvider<UserDetailsCache> userDetailsCache;
+
+    public UserCacheInvalidationListener(ObjectProvider<UserDetailsCache> userDetailsCache) {
+        this.userDetailsCache = userDetailsCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void invalidate(Object entity) {
+        // Contexts without a user cache (e.g. JPA test slices) have nothing to invalidate
+        UserDetailsCache cache = userDetailsCache.getIfAvailable(UserDetailsCache::disabled);
+        if (entity instanceof User user) {
+            cache.removeUserFromCache(user.getUsername());
+        } else if (entity instanceof Plan) {
+            // A plan is shared by many users and the cache is keyed by username
+            cache.removeAll();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package imagelify.api.security;
+
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Caché de usuarios autenticados por nombre de usuario. Además de las operaciones de {@link UserCache}
+ * permite vaciarla entera, necesario cuando cambia un plan compartido por muchos usuarios.
+ */
+public interface UserDetailsCache extends UserCache {
+
+    void removeAll();
+
+    static UserDetailsCache disabled() {
+        return new UserDetailsCache() {
+            @Override
+            public UserDetails getUserFromCache(String username) {
+                return null;
+            }
+
+            @Override
+            public void putUserInCache(UserDetails user) {
+            }
+
+            @Override
+            public void removeUserFromCache(String username) {
+            }
+
+            @Override
+            public void removeAll() {
+            }
+        };
+    }
+}
@@ -0,0 +1,13 @@
+package imagelify.api.service;
+
+import imagelify.api.dto.BatchUploadResult;
+import imagelify.api.entity.User;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+public interface BatchUploadService {
+    CompletableFuture<Void> uploadBatch(List<MultipartFile> files, User user, Consumer<BatchUploadResult> results);
+}
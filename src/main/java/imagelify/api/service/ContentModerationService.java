@@ -1,7 +1,26 @@
 package imagelify.api.service;
 
+import imagelify.api.dto.ModerationVerdict;
+import imagelify.api.exception.InappropriateContentException;
+import imagelify.api.upload.ContentHash;
 import org.springframework.web.multipart.MultipartFile;
 
 public interface ContentModerationService {
-    void checkImageForInappropriateContent(MultipartFile file);
+    ModerationVerdict moderate(MultipartFile file, String contentHash);
+
+    default ModerationVerdict checkImageForInappropriateContent(MultipartFile file) {
+        return checkImageForInappropriateContent(file, ContentHash.of(file));
+    }
+
+    /**
+     * @return El veredicto, siempre aprobado; si no está verificado, la imagen debe guardarse como UNVERIFIED.
+     * @throws InappropriateContentException si el contenido se rechaza.
+     */
+    default ModerationVerdict checkImageForInappropriateContent(MultipartFile file, String contentHash) {
+        ModerationVerdict verdict = moderate(file, contentHash);
+        if (!verdict.approved()) {
+            throw new InappropriateContentException(verdict.reason());
+        }
+        return verdict;
+    }
 }
@@ -0,0 +1,11 @@
+package imagelify.api.service;
+
+import imagelify.api.dto.DirectUploadRequest;
+import imagelify.api.dto.PresignedUpload;
+import imagelify.api.entity.Image;
+import imagelify.api.entity.User;
+
+public interface DirectUploadService {
+    PresignedUpload initiate(DirectUploadRequest request, User user);
+    Image complete(String key, User user);
+}
@@ -1,11 +1,22 @@
 package imagelify.api.service;
 
+import imagelify.api.dto.ImageCursor;
+import imagelify.api.dto.ImageSummary;
+import imagelify.api.dto.StoredObject;
 import imagelify.api.entity.Image;
+import imagelify.api.entity.User;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ImageService {
-    Image uploadImage(MultipartFile file, Long userId);
-    List<Image> getImagesByUserId(Long userId);
+    Image uploadImage(MultipartFile file, User user);
+    Image registerStoredUpload(MultipartFile file, StoredObject stored, User user);
+    void checkPlanLimits(User user, long fileSize);
+    void checkFileSize(User user, long fileSize);
+    List<ImageSummary> getImagePage(Long userId, ImageCursor after, int limit);
+    Optional<Image> getImage(Long imageId, Long userId);
+    List<Long> deleteImages(Collection<Long> imageIds, Long userId);
 }
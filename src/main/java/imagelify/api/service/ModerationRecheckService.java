@@ -0,0 +1,5 @@
+package imagelify.api.service;
+
+public interface ModerationRecheckService {
+    int recheckUnverified();
+}
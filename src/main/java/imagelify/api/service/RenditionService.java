@@ -0,0 +1,11 @@
+package imagelify.api.service;
+
+import imagelify.api.entity.Image;
+import imagelify.api.entity.ImageRendition;
+
+import java.util.Optional;
+
+public interface RenditionService {
+    void generateAsync(Image image);
+    Optional<ImageRendition> getRendition(Image image, String name);
+}
@@ -0,0 +1,10 @@
+package imagelify.api.service;
+
+import java.util.Collection;
+
+public interface StorageCleanupService {
+    void scheduleDeletion(Collection<String> keys);
+    void cancelDeletions(String contentHash);
+    int deleteScheduled();
+    int scheduleOrphans();
+}
@@ -1,7 +1,48 @@
 package imagelify.api.service;
 
+import imagelify.api.dto.PresignedUpload;
+import imagelify.api.dto.StoredContent;
+import imagelify.api.dto.StoredObject;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
 public interface StorageService {
-    String uploadFile(MultipartFile file);
+    StoredObject uploadFile(MultipartFile file);
+
+    /**
+     * Sube el archivo sin bloquear al llamador. Las implementaciones síncronas lo hacen en un hilo virtual;
+     * las asíncronas devuelven directamente el futuro del cliente.
+     */
+    default CompletableFuture<StoredObject> uploadFileAsync(MultipartFile file) {
+        return CompletableFuture.supplyAsync(() -> uploadFile(file), task -> Thread.ofVirtual().start(task));
+    }
+
+    StoredObject uploadFile(String key, Path file, String contentType);
+    void downloadFile(String key, Path target);
+    void deleteFile(String key);
+
+    /**
+     * Borra varios objetos con el menor número de peticiones que admita el almacenamiento.
+     * @return Las claves que no se pudieron borrar.
+     */
+    Set<String> deleteFiles(Collection<String> keys);
+
+    /**
+     * Claves de todos los objetos del bucket modificados antes de {@code modifiedBefore}, leídas por páginas
+     * según se consume el stream. El llamador debe cerrarlo.
+     */
+    Stream<String> listKeys(Instant modifiedBefore);
+    PresignedUpload presignUpload(String key, String contentType, long contentLength);
+    Optional<StoredContent> openFile(String key);
+    String publicUrl(String key);
+    String readUrl(String key);
+    Map<String, String> readUrls(Collection<String> keys);
 }
@@ -0,0 +1,14 @@
+package imagelify.api.service;
+
+import imagelify.api.entity.UploadJob;
+import imagelify.api.entity.User;
+import imagelify.api.upload.StagedUpload;
+
+import java.util.Optional;
+
+public interface UploadJobService {
+    UploadJob submit(StagedUpload upload, User user);
+    Optional<UploadJob> getJob(String jobId, Long userId);
+    int failAbandoned();
+    int deleteExpired();
+}
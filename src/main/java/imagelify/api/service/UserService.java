@@ -4,4 +4,10 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 
 public interface UserService {
     UserDetailsService userDetailsService();
+
+    /**
+     * Carga los usuarios siempre de la base de datos, con la contraseña, para comprobar credenciales al iniciar sesión.
+     * La caché de usuarios puede no guardar la contraseña.
+     */
+    UserDetailsService credentialsUserDetailsService();
 }
@@ -0,0 +1,12 @@
+package imagelify.api.service;
+
+import imagelify.api.entity.User;
+
+public interface UserUsageService {
+    void initialize(User user);
+    void reserve(User user, long bytes);
+    void reserve(User user, int images, long bytes);
+    void release(Long userId, long bytes);
+    void release(Long userId, int images, long bytes);
+    void checkAvailable(User user);
+}
@@ -0,0 +1,147 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.dto.StoredObject;
+import imagelify.api.upload.ContentHash;
+import imagelify.api.upload.StagedUpload;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.transfer.s3.S3TransferManager;
+import software.amazon.awssdk.transfer.s3.model.DownloadFileRequest;
+import software.amazon.awssdk.transfer.s3.model.UploadFileRequest;
+import software.amazon.awssdk.transfer.s3.model.UploadRequest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Almacenamiento sobre el cliente asíncrono CRT y el transfer manager, activo con {@code storage.client=CRT}.
+ * Las transferencias de datos no ocupan hilos mientras esperan a la red; el resto de operaciones
+ * (bucket, borrado, firmas) se heredan del cliente síncrono.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.client", havingValue = "CRT")
+@Slf4j
+public class AsyncS3Service extends S3Service {
+
+    private final S3TransferManager transferManager;
+    private final ObservationRegistry observationRegistry;
+    private final DistributionSummary uploadBytes;
+    // Only reads request bodies that are not on disk; CRT itself does the network I/O
+    private final ExecutorService streamReader = Executors.newVirtualThreadPerTaskExecutor();
+
+    public AsyncS3Service(S3Client s3Client, S3MultipartUploader multipartUploader, S3Presigner s3Presigner,
+                          S3TransferManager transferManager,
+                          ObservationRegistry observationRegistry, MeterRegistry meterRegistry) {
+        super(s3Client, multipartUploader, s3Presigner, observationRegistry, meterRegistry);
+        this.transferManager = transferManager;
+        this.observationRegistry = observationRegistry;
+        this.uploadBytes = uploadBytes(meterRegistry, "crt");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streamReader.close();
+    }
+
+    @Override
+    public StoredObject uploadFile(MultipartFile file) {
+        try {
+            return uploadFileAsync(file).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Sube el archivo con el transfer manager, que lo divide en partes paralelas si supera el umbral.
+     * @param file Archivo multipart a subir.
+     * @return Un futuro con la clave y la URL pública, completado por el cliente CRT al terminar.
+     */
+    @Override
+    public CompletableFuture<StoredObject> uploadFileAsync(MultipartFile file) {
+        String key = newObjectKey(ContentHash.of(file), file.getOriginalFilename());
+        Observation observation = Observation.createNotStarted("imagelify.storage.upload", observationRegistry)
+                .lowCardinalityKeyValue("mode", "crt")
+                .start();
+
+        CompletableFuture<?> upload;
+        try {
+            upload = upload(putObjectRequest(key, file.getContentType()), file);
+        } catch (IOException | RuntimeException e) {
+            log.error("Error uploading file '{}': {}", key, e.getMessage());
+            observation.error(e);
+            observation.stop();
+            return CompletableFuture.failedFuture(
+                    new RuntimeException("Error uploading file to S3-compatible storage: " + e.getMessage(), e));
+        }
+
+        return upload.handle((completed, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                log.error("Error uploading file '{}': {}", key, cause.getMessage());
+                observation.error(cause);
+                observation.stop();
+                throw new CompletionException(new RuntimeException(
+                        "Error uploading file to S3-compatible storage: " + cause.getMessage(), cause));
+            }
+            uploadBytes.record(file.getSize());
+            observation.stop();
+            return new StoredObject(key, publicUrl(key));
+        });
+    }
+
+    private CompletableFuture<?> upload(PutObjectRequest request, MultipartFile file) throws IOException {
+        if (file instanceof StagedUpload staged) {
+            return transferManager.uploadFile(UploadFileRequest.builder()
+                    .putObjectRequest(request)
+                    .source(staged.getPath())
+                    .build()).completionFuture();
+        }
+        AsyncRequestBody body = AsyncRequestBody.fromInputStream(file.getInputStream(), file.getSize(), streamReader);
+        return transferManager.upload(UploadRequest.builder()
+                .putObjectRequest(request)
+                .requestBody(body)
+                .build()).completionFuture();
+    }
+
+    @Override
+    public StoredObject uploadFile(String key, Path file, String contentType) {
+        join(transferManager.uploadFile(UploadFileRequest.builder()
+                .putObjectRequest(putObjectRequest(key, contentType))
+                .source(file)
+                .build()).completionFuture(), "Error uploading file to S3-compatible storage");
+        return new StoredObject(key, publicUrl(key));
+    }
+
+    @Override
+    public void downloadFile(String key, Path target) {
+        join(transferManager.downloadFile(DownloadFileRequest.builder()
+                .getObjectRequest(getObjectRequest(key))
+                .destination(target)
+                .build()).completionFuture(), "Error downloading file from S3-compatible storage");
+    }
+
+    private static <T> T join(CompletableFuture<T> future, String message) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            throw new RuntimeException(message + ": " + cause.getMessage(), cause);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import imagelify.api.entity.User;
 import imagelify.api.repository.UserRepository;
 import imagelify.api.service.AuthenticationService;
 import imagelify.api.service.JwtService;
+import imagelify.api.service.UserUsageService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -19,6 +20,7 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class AuthenticationServiceImpl implements AuthenticationService {
     private final UserRepository userRepository;
+    private final UserUsageService userUsageService;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
@@ -33,6 +35,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
                 .isEnabled(true) // You might want to add email verification later
                 .build();
         userRepository.save(user);
+        userUsageService.initialize(user);
         var jwt = jwtService.generateToken(user);
         return JwtAuthenticationResponse.builder().token(jwt).build();
     }
@@ -0,0 +1,266 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.dto.BatchUploadResult;
+import imagelify.api.dto.StoredObject;
+import imagelify.api.entity.Image;
+import imagelify.api.entity.ModerationStatus;
+import imagelify.api.entity.User;
+import imagelify.api.exception.BatchTooLargeException;
+import imagelify.api.repository.ImageRepository;
+import imagelify.api.service.BatchUploadService;
+import imagelify.api.service.ContentModerationService;
+import imagelify.api.service.ImageService;
+import imagelify.api.service.RenditionService;
+import imagelify.api.service.StorageCleanupService;
+import imagelify.api.service.StorageService;
+import imagelify.api.service.UserUsageService;
+import imagelify.api.upload.ContentHash;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+@Service
+@Slf4j
+public class BatchUploadServiceImpl implements BatchUploadService {
+
+    private final ImageService imageService;
+    private final StorageService storageService;
+    private final ImageRepository imageRepository;
+    private final UserUsageService userUsageService;
+    private final ContentModerationService contentModerationService;
+    private final RenditionService renditionService;
+    private final StorageCleanupService storageCleanupService;
+    private final Executor batchUploadExecutor;
+
+    @Value("${upload.batch.max-files:100}")
+    private int maxFiles;
+
+    @Value("${upload.batch.insert-chunk-size:50}")
+    private int insertChunkSize;
+
+    @Value("${upload.batch.flush-interval:200ms}")
+    private Duration flushInterval;
+
+    public BatchUploadServiceImpl(ImageService imageService,
+                                  StorageService storageService,
+                                  ImageRepository imageRepository,
+                                  UserUsageService userUsageService,
+                                  ContentModerationService contentModerationService,
+                                  RenditionService renditionService,
+                                  StorageCleanupService storageCleanupService,
+                                  @Qualifier("batchUploadExecutor") Executor batchUploadExecutor) {
+        this.imageService = imageService;
+        this.storageService = storageService;
+        this.imageRepository = imageRepository;
+        this.userUsageService = userUsageService;
+        this.contentModerationService = contentModerationService;
+        this.renditionService = renditionService;
+        this.storageCleanupService = storageCleanupService;
+        this.batchUploadExecutor = batchUploadExecutor;
+    }
+
+    /**
+     * Sube varios archivos en paralelo. La cuota del lote se reserva de una vez antes de empezar;
+     * cada archivo se valida, modera y almacena por separado, y las imágenes aceptadas se guardan por bloques.
+     * @param files Archivos del lote.
+     * @param user Usuario autenticado.
+     * @param results Recibe el resultado de cada archivo en cuanto se conoce, siempre desde el mismo hilo.
+     * @return Un futuro que se completa cuando todos los archivos tienen resultado.
+     * @throws BatchTooLargeException si el lote supera {@code upload.batch.max-files}.
+     * @throws imagelify.api.exception.ImageLimitExceededException si el lote completo no cabe en el plan.
+     */
+    @Override
+    public CompletableFuture<Void> uploadBatch(List<MultipartFile> files, User user, Consumer<BatchUploadResult> results) {
+        if (files.size() > maxFiles) {
+            throw new BatchTooLargeException("A batch can contain at most " + maxFiles + " files");
+        }
+        long totalBytes = files.stream().mapToLong(MultipartFile::getSize).sum();
+        // One counter update for the whole batch; whatever is not saved in the end is released in one update too
+        userUsageService.reserve(user, files.size(), totalBytes);
+
+        BlockingQueue<PreparedFile> prepared = new LinkedBlockingQueue<>();
+        CompletableFuture<Void> collector = CompletableFuture.runAsync(
+                () -> collect(prepared, files.size(), totalBytes, user, results),
+                task -> Thread.ofVirtual().name("upload-batch-collector").start(task));
+
+        for (int i = 0; i < files.size(); i++) {
+            int index = i;
+            MultipartFile file = files.get(i);
+            try {
+                batchUploadExecutor.execute(() -> prepared.add(prepare(index, file, user)));
+            } catch (RejectedExecutionException e) {
+                prepared.add(PreparedFile.failed(index, file, e));
+            }
+        }
+        return collector;
+    }
+
+    private PreparedFile prepare(int index, MultipartFile file, User user) {
+        try {
+            imageService.checkFileSize(user, file.getSize());
+
+            // Identical bytes already stored and verified by moderation are not moderated or stored again
+            String contentHash = ContentHash.of(file);
+            Optional<Image> duplicate = imageRepository.findFirstByContentHashAndModerationStatus(contentHash,
+                    ModerationStatus.VERIFIED);
+            StoredObject stored;
+            ModerationStatus moderationStatus;
+            if (duplicate.isPresent()) {
+                stored = new StoredObject(duplicate.get().getStorageKey(), duplicate.get().getS3Url());
+                moderationStatus = ModerationStatus.VERIFIED;
+            } else {
+                moderationStatus = contentModerationService.checkImageForInappropriateContent(file, contentHash).status();
+                storageCleanupService.cancelDeletions(contentHash);
+                stored = storageService.uploadFile(file);
+            }
+
+            Image image = Image.builder()
+                    .filename(file.getOriginalFilename())
+                    .s3Url(stored.url())
+                    .storageKey(stored.key())
+                    .contentHash(contentHash)
+                    .moderationStatus(moderationStatus)
+                    .fileSize(file.getSize())
+                    .mimeType(file.getContentType())
+                    .uploadDate(LocalDateTime.now())
+                    .user(user)
+                    .build();
+            return new PreparedFile(index, file.getOriginalFilename(), image, duplicate.isEmpty(), null);
+        } catch (RuntimeException e) {
+            return PreparedFile.failed(index, file, e);
+        }
+    }
+
+    /**
+     * Recoge los archivos preparados según terminan: los fallidos se notifican al momento y los aceptados
+     * se acumulan y se insertan en bloques de {@code upload.batch.insert-chunk-size}, o antes si no llega
+     * ningún archivo durante {@code upload.batch.flush-interval}.
+     */
+    private void collect(BlockingQueue<PreparedFile> prepared, int total, long totalBytes, User user,
+                         Consumer<BatchUploadResult> results) {
+        List<PreparedFile> pending = new ArrayList<>(insertChunkSize);
+        int received = 0;
+        int savedImages = 0;
+        long savedBytes = 0;
+        try {
+            while (received < total) {
+                PreparedFile next = prepared.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (next != null) {
+                    received++;
+                    if (next.error() != null) {
+                        log.warn("Batch upload of '{}' failed: {}", next.filename(), next.error().getMessage());
+                        results.accept(BatchUploadResult.failed(next.index(), next.filename(),
+                                status(next.error()), next.error().getMessage()));
+                    } else {
+                        pending.add(next);
+                    }
+                }
+                if (!pending.isEmpty() && (next == null || pending.size() >= insertChunkSize || received == total)) {
+                    List<Image> saved = save(pending, results);
+                    // Counted as soon as the rows exist, so nothing that fails afterwards gives their quota back
+                    savedImages += saved.size();
+                    savedBytes += saved.stream().mapToLong(Image::getFileSize).sum();
+                    report(pending, saved, results);
+                    pending.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Batch upload for user {} interrupted after {} of {} files", user.getId(), received, total);
+        } finally {
+            if (savedImages < total) {
+                userUsageService.release(user.getId(), total - savedImages, totalBytes - savedBytes);
+            }
+        }
+    }
+
+    private List<Image> save(List<PreparedFile> chunk, Consumer<BatchUploadResult> results) {
+        List<Image> saved;
+        try {
+            saved = imageRepository.saveAll(chunk.stream().map(PreparedFile::image).toList());
+        } catch (RuntimeException e) {
+            log.error("Could not save {} batch uploaded images: {}", chunk.size(), e.getMessage());
+            deleteStoredObjects(chunk.stream()
+                    .filter(PreparedFile::uploaded)
+                    .map(file -> file.image().getStorageKey())
+                    .toList());
+            for (PreparedFile file : chunk) {
+                results.accept(BatchUploadResult.failed(file.index(), file.filename(),
+                        HttpStatus.INTERNAL_SERVER_ERROR.value(), "Could not save image: " + e.getMessage()));
+            }
+            return List.of();
+        }
+        return saved;
+    }
+
+    /**
+     * Notifica las imágenes ya guardadas de un bloque. Las imágenes existen aunque falle la resolución de URLs
+     * o la generación de variantes, así que cada archivo se notifica como creado igualmente.
+     */
+    private void report(List<PreparedFile> chunk, List<Image> saved, Consumer<BatchUploadResult> results) {
+        Map<String, String> urls;
+        try {
+            // Read URLs for the whole chunk are resolved (and, if presigned, signed) in one batch
+            urls = storageService.readUrls(saved.stream().map(Image::getStorageKey).toList());
+        } catch (RuntimeException e) {
+            log.warn("Could not resolve read URLs for {} batch uploaded images: {}", saved.size(), e.getMessage());
+            urls = Map.of();
+        }
+        for (int i = 0; i < saved.size(); i++) {
+            Image image = saved.get(i);
+            results.accept(BatchUploadResult.created(chunk.get(i).index(), image.getFilename(), image.getId(),
+                    urls.getOrDefault(image.getStorageKey(), image.getS3Url())));
+            try {
+                renditionService.generateAsync(image);
+            } catch (RuntimeException e) {
+                // Renditions are regenerated on demand when first requested
+                log.warn("Could not schedule renditions for image {}: {}", image.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void deleteStoredObjects(List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        // Keys are content-addressed: a concurrent upload of the same file may have stored the object and not yet
+        // saved its image. The reaper waits out the grace period and deletes only objects nothing references
+        try {
+            storageCleanupService.scheduleDeletion(keys);
+        } catch (RuntimeException e) {
+            // The orphan sweep finds them later
+            log.error("Could not queue {} stored objects for deletion: {}", keys.size(), e.getMessage());
+        }
+    }
+
+    private static int status(RuntimeException e) {
+        ResponseStatus status = AnnotatedElementUtils.findMergedAnnotation(e.getClass(), ResponseStatus.class);
+        return status != null ? status.code().value() : HttpStatus.INTERNAL_SERVER_ERROR.value();
+    }
+
+    private record PreparedFile(int index, String filename, Image image, boolean uploaded, RuntimeException error) {
+
+        static PreparedFile failed(int index, MultipartFile file, RuntimeException error) {
+            return new PreparedFile(index, file.getOriginalFilename(), null, false, error);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package imagelify.api.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import imagelify.api.dto.ModerationVerdict;
+import imagelify.api.entity.ModerationResult;
+import imagelify.api.repository.ModerationResultRepository;
+import imagelify.api.service.ContentModerationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Caché de veredictos de moderación delante del proveedor remoto, indexada por el hash del contenido.
+ * Mantiene los veredictos en memoria con expulsión por tamaño y TTL opcional,
+ * y opcionalmente los persiste en base de datos para que sobrevivan a un reinicio, sujetos al mismo TTL.
+ */
+@Service
+@Primary
+@Slf4j
+public class CachingContentModerationService implements ContentModerationService {
+
+    private final ContentModerationService delegate;
+    private final ModerationResultRepository moderationResultRepository;
+    private final Cache<String, ModerationVerdict> verdicts;
+    private final Counter persistentHits;
+    private final boolean persistent;
+    private final Duration ttl;
+
+    public CachingContentModerationService(@Qualifier("sightengineServiceImpl") ContentModerationService delegate,
+                                           ModerationResultRepository moderationResultRepository,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${moderation.cache.max-size:10000}") long maxSize,
+                                           @Value("${moderation.cache.ttl:0s}") Duration ttl,
+                                           @Value("${moderation.cache.persistent:false}") boolean persistent) {
+        this.delegate = delegate;
+        this.moderationResultRepository = moderationResultRepository;
+        this.persistent = persistent;
+        this.ttl = ttl;
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats();
+        if (!ttl.isZero()) {
+            builder.expireAfterWrite(ttl);
+        }
+        this.verdicts = CaffeineCacheMetrics.monitor(meterRegistry, builder.build(), "moderation.verdicts");
+        this.persistentHits = Counter.builder("moderation.verdicts.persistent.hits")
+                .description("Moderation verdicts served from the database after an in-memory miss")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ModerationVerdict moderate(MultipartFile file, String contentHash) {
+        ModerationVerdict cached = verdicts.getIfPresent(contentHash);
+        if (cached != null) {
+            return cached;
+        }
+
+        Optional<ModerationVerdict> stored = findPersisted(contentHash);
+        if (stored.isPresent()) {
+            persistentHits.increment();
+            verdicts.put(contentHash, stored.get());
+            return stored.get();
+        }
+
+        // Provider failures either propagate or come back unverified (fail-open); neither is cached
+        ModerationVerdict verdict = delegate.moderate(file, contentHash);
+        if (verdict.verified()) {
+            verdicts.put(contentHash, verdict);
+            persist(contentHash, verdict);
+        }
+        return verdict;
+    }
+
+    private Optional<ModerationVerdict> findPersisted(String contentHash) {
+        if (!persistent) {
+            return Optional.empty();
+        }
+        return moderationResultRepository.findById(contentHash)
+                // The TTL applies to persisted verdicts too; a stale one is checked again and overwritten
+                .filter(result -> ttl.isZero() || result.getCheckedAt().isAfter(LocalDateTime.now().minus(ttl)))
+                .map(result -> new ModerationVerdict(result.getApproved(), result.getReason(), true));
+    }
+
+    private void persist(String contentHash, ModerationVerdict verdict) {
+        if (!persistent) {
+            return;
+        }
+        try {
+            moderationResultRepository.save(ModerationResult.builder()
+                    .contentHash(contentHash)
+                    .approved(verdict.approved())
+                    .reason(verdict.reason())
+                    .checkedAt(LocalDateTime.now())
+                    .build());
+        } catch (RuntimeException e) {
+            // The in-memory entry is still valid; losing the persisted copy only costs a future remote call
+            log.warn("Could not persist moderation verdict for {}: {}", contentHash, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.dto.DirectUploadRequest;
+import imagelify.api.dto.PresignedUpload;
+import imagelify.api.dto.StoredContent;
+import imagelify.api.dto.StoredObject;
+import imagelify.api.entity.DirectUpload;
+import imagelify.api.entity.Image;
+import imagelify.api.entity.User;
+import imagelify.api.exception.DirectUploadInProgressException;
+import imagelify.api.exception.DirectUploadNotFoundException;
+import imagelify.api.repository.DirectUploadRepository;
+import imagelify.api.repository.ImageRepository;
+import imagelify.api.service.DirectUploadService;
+import imagelify.api.service.ImageService;
+import imagelify.api.service.StorageService;
+import imagelify.api.upload.StagedUpload;
+import imagelify.api.upload.UploadStager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Subida en dos fases: el cliente pide una URL prefirmada, sube el archivo directamente al bucket
+ * y después confirma la subida para que se modere y se registre. Los bytes no pasan por la API al subir.
+ */
+@Service
+@Slf4j
+public class DirectUploadServiceImpl implements DirectUploadService {
+
+    private static final String KEY_PREFIX = "uploads/";
+    private static final int UUID_LENGTH = 36;
+    // storage_key columns are varchar(255); renditions append ".<name>.<format>" to the key
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int RENDITION_SUFFIX_LENGTH = 32;
+
+    private final ImageService imageService;
+    private final StorageService storageService;
+    private final ImageRepository imageRepository;
+    private final DirectUploadRepository directUploadRepository;
+    private final UploadStager uploadStager;
+
+    @Value("${spring.servlet.multipart.max-file-size}")
+    private DataSize maxFileSize;
+
+    @Value("${upload.direct.claim-timeout:10m}")
+    private Duration claimTimeout;
+
+    public DirectUploadServiceImpl(ImageService imageService,
+                                   StorageService storageService,
+                                   ImageRepository imageRepository,
+                                   DirectUploadRepository directUploadRepository,
+                                   UploadStager uploadStager) {
+        this.imageService = imageService;
+        this.storageService = storageService;
+        this.imageRepository = imageRepository;
+        this.directUploadRepository = directUploadRepository;
+        this.uploadStager = uploadStager;
+    }
+
+    /**
+     * Aplica los mismos límites que una subida normal y firma un PUT para una clave propia del usuario.
+     */
+    @Override
+    public PresignedUpload initiate(DirectUploadRequest request, User user) {
+        if (request.getSize() > maxFileSize.toBytes()) {
+            throw new MaxUploadSizeExceededException(maxFileSize.toBytes());
+        }
+        imageService.checkPlanLimits(user, request.getSize());
+
+        String prefix = userPrefix(user) + UUID.randomUUID() + "-";
+        String key = prefix + sanitize(request.getFilename(), MAX_KEY_LENGTH - RENDITION_SUFFIX_LENGTH - prefix.length());
+        return storageService.presignUpload(key, request.getContentType(), request.getSize());
+    }
+
+    /**
+     * Lee el objeto subido una vez (para el hash y la moderación), y lo registra como imagen del usuario.
+     * Solo una confirmación de cada clave registra la imagen: las demás devuelven la imagen ya registrada,
+     * o un conflicto mientras la primera sigue en curso. Una confirmación que no terminó en
+     * {@code upload.direct.claim-timeout} (por ejemplo, porque el nodo se cayó) la puede retomar otra.
+     * @throws DirectUploadInProgressException si otra confirmación de la misma clave aún no ha terminado.
+     */
+    @Override
+    public Image complete(String key, User user) {
+        if (!key.startsWith(userPrefix(user)) || key.length() <= userPrefix(user).length() + UUID_LENGTH + 1) {
+            throw new DirectUploadNotFoundException("Upload not found: " + key);
+        }
+        // Stored as datetime(6); truncated so the value read back matches the one this confirmation holds
+        LocalDateTime claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        if (!claim(key, user, claimedAt)) {
+            return registeredImage(key, user);
+        }
+
+        Image image;
+        try {
+            // Confirmed before confirmations were recorded
+            image = imageRepository.findFirstByStorageKey(key)
+                    .filter(registered -> registered.getUser().getId().equals(user.getId()))
+                    .orElseGet(() -> register(key, user));
+        } catch (RuntimeException e) {
+            // Let the client confirm again, e.g. after moderation comes back
+            directUploadRepository.release(key, claimedAt);
+            throw e;
+        }
+        directUploadRepository.complete(key, image.getId());
+        return image;
+    }
+
+    private boolean claim(String key, User user, LocalDateTime claimedAt) {
+        try {
+            directUploadRepository.claim(key, user.getId(), claimedAt);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // Already claimed; only a confirmation abandoned for longer than the timeout can be taken over
+            return directUploadRepository.takeOver(key, user.getId(), claimedAt, claimedAt.minus(claimTimeout)) == 1;
+        }
+    }
+
+    private Image registeredImage(String key, User user) {
+        DirectUpload claimed = directUploadRepository.findById(key)
+                .filter(upload -> upload.getUserId().equals(user.getId()))
+                .orElseThrow(() -> new DirectUploadNotFoundException("Upload not found: " + key));
+        if (claimed.getImageId() == null) {
+            throw new DirectUploadInProgressException("Upload is still being registered: " + key);
+        }
+        return imageRepository.findByIdAndUserId(claimed.getImageId(), user.getId())
+                .orElseThrow(() -> new DirectUploadNotFoundException("Upload not found: " + key));
+    }
+
+    private Image register(String key, User user) {
+        String filename = key.substring(userPrefix(user).length() + UUID_LENGTH + 1);
+        StoredContent content = storageService.openFile(key)
+                .orElseThrow(() -> new DirectUploadNotFoundException("Upload not found: " + key));
+        StagedUpload staged;
+        try (content) {
+            staged = uploadStager.stage(content.stream(), filename, content.contentType());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (MaxUploadSizeExceededException e) {
+            storageService.deleteFile(key);
+            throw e;
+        }
+
+        try (staged) {
+            return imageService.registerStoredUpload(staged, new StoredObject(key, storageService.publicUrl(key)), user);
+        }
+    }
+
+    private static String userPrefix(User user) {
+        return KEY_PREFIX + user.getId() + "/";
+    }
+
+    private static String sanitize(String filename, int maxLength) {
+        // Only the last path segment, so a filename cannot escape the user's prefix
+        String name = filename.substring(Math.max(filename.lastIndexOf('/'), filename.lastIndexOf('\\')) + 1);
+        if (name.isBlank()) {
+            return "upload";
+        }
+        if (name.length() <= maxLength) {
+            return name;
+        }
+        // Shortened before the extension, so the stored name still shows the format
+        int dot = name.lastIndexOf('.');
+        String extension = dot > 0 && name.length() - dot <= 10 ? name.substring(dot) : "";
+        return name.substring(0, maxLength - extension.length()) + extension;
+    }
+}
@@ -1,75 +1,341 @@
 package imagelify.api.service.impl;
 
+import imagelify.api.dto.ImageCursor;
+import imagelify.api.dto.ImageSummary;
+import imagelify.api.dto.ModerationVerdict;
+import imagelify.api.dto.StoredObject;
 import imagelify.api.entity.Image;
+import imagelify.api.entity.ModerationStatus;
 import imagelify.api.entity.User;
-import imagelify.api.exception.ImageLimitExceededException;
 import imagelify.api.exception.PlanUpgradeException;
+import imagelify.api.repository.ImageRenditionRepository;
 import imagelify.api.repository.ImageRepository;
-import imagelify.api.repository.UserRepository;
+import imagelify.api.repository.ReadReplica;
 import imagelify.api.service.ContentModerationService;
 import imagelify.api.service.ImageService;
+import imagelify.api.service.RenditionService;
+import imagelify.api.service.StorageCleanupService;
 import imagelify.api.service.StorageService;
-import lombok.RequiredArgsConstructor;
+import imagelify.api.service.UserUsageService;
+import imagelify.api.upload.ContentHash;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class ImageServiceImpl implements ImageService {
 
     private final StorageService storageService;
     private final ImageRepository imageRepository;
-    private final UserRepository userRepository;
+    private final ImageRenditionRepository imageRenditionRepository;
+    private final UserUsageService userUsageService;
     private final ContentModerationService contentModerationService;
+    private final RenditionService renditionService;
+    private final StorageCleanupService storageCleanupService;
+    private final Executor uploadStageExecutor;
+    private final ObservationRegistry observationRegistry;
 
+    @Value("${upload.speculative.enabled:false}")
+    private boolean speculative;
+
+    public ImageServiceImpl(StorageService storageService,
+                            ImageRepository imageRepository,
+                            ImageRenditionRepository imageRenditionRepository,
+                            UserUsageService userUsageService,
+                            ContentModerationService contentModerationService,
+                            RenditionService renditionService,
+                            StorageCleanupService storageCleanupService,
+                            @Qualifier("uploadStageExecutor") Executor uploadStageExecutor,
+                            ObservationRegistry observationRegistry) {
+        this.storageService = storageService;
+        this.imageRepository = imageRepository;
+        this.imageRenditionRepository = imageRenditionRepository;
+        this.userUsageService = userUsageService;
+        this.contentModerationService = contentModerationService;
+        this.renditionService = renditionService;
+        this.storageCleanupService = storageCleanupService;
+        this.uploadStageExecutor = uploadStageExecutor;
+        this.observationRegistry = observationRegistry;
+    }
+
+    /**
+     * Sube una imagen. Cada etapa (moderación, plan, almacenamiento y guardado) se registra como una observación
+     * hija de {@code imagelify.upload}, lo que produce un timer por etapa y un span por etapa en la traza.
+     */
     @Override
-    public Image uploadImage(MultipartFile file, Long userId) {
-        // 1. Validate image content before anything else
-        contentModerationService.checkImageForInappropriateContent(file);
+    public Image uploadImage(MultipartFile file, User user) {
+        Observation upload = Observation.createNotStarted("imagelify.upload", observationRegistry)
+                .contextualName("upload image");
+        return upload.observe(() -> upload(file, user, upload));
+    }
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    private Image upload(MultipartFile file, User user, Observation upload) {
+        // 1. Identical bytes already stored and verified by moderation: a repeat upload reuses both the verdict
+        // and the stored object. Copies accepted unverified (fail-open) do not count and are moderated again
+        String contentHash = ContentHash.of(file);
+        Optional<Image> duplicate = imageRepository.findFirstByContentHashAndModerationStatus(contentHash,
+                ModerationStatus.VERIFIED);
+        if (duplicate.isPresent()) {
+            upload.lowCardinalityKeyValue("path", "duplicate");
+            Image existing = duplicate.get();
+            return withReservedQuota(user, file.getSize(), upload, () -> saveImage(file, user,
+                    new StoredObject(existing.getStorageKey(), existing.getS3Url()), contentHash,
+                    ModerationStatus.VERIFIED, upload));
+        }
 
-        // Define the size limit for free plans (3MB)
-        long freePlanMaxSize = 3 * 1024 * 1024;
+        if (speculative) {
+            upload.lowCardinalityKeyValue("path", "speculative");
+            return uploadSpeculatively(file, user, contentHash, upload);
+        }
+        upload.lowCardinalityKeyValue("path", "sequential");
 
-        if (user.getPlan() != null) {
-            // Check for file size limit on FREE plan
-            if ("FREE".equalsIgnoreCase(user.getPlan().getName()) && file.getSize() > freePlanMaxSize) {
-                throw new PlanUpgradeException("File size exceeds the 3MB limit for the FREE plan. Please upgrade your plan for larger uploads.");
-            }
+        // 2. Validate image content before anything else
+        ModerationVerdict verdict = observeStage("imagelify.upload.moderation", upload,
+                () -> contentModerationService.checkImageForInappropriateContent(file, contentHash));
+
+        return withReservedQuota(user, file.getSize(), upload, () -> {
+            // A deleted copy of this content may still be queued for removal from storage
+            storageCleanupService.cancelDeletions(contentHash);
+            StoredObject stored = observeStage("imagelify.upload.storage", upload, () -> storageService.uploadFile(file));
+            return saveImage(file, user, stored, contentHash, verdict.status(), upload);
+        });
+    }
 
-            // Check if the user has reached the image upload limit for their plan
-            if (user.getPlan().getMaxImages() != null) {
-                long imageCount = imageRepository.countByUser(user);
-                if (imageCount >= user.getPlan().getMaxImages()) {
-                    throw new ImageLimitExceededException("Image upload limit reached for your plan.");
+    /**
+     * Lanza la moderación y la subida al almacenamiento en paralelo mientras se validan el plan y la cuota,
+     * de modo que la latencia se acerca a max(moderación, almacenamiento) en lugar de su suma.
+     * Si la moderación, la cuota o el guardado fallan, el objeto ya subido se encola para borrarlo como compensación.
+     */
+    private Image uploadSpeculatively(MultipartFile file, User user, String contentHash, Observation upload) {
+        storageCleanupService.cancelDeletions(contentHash);
+        // The stages run on executor threads, so their parent observation is set explicitly
+        CompletableFuture<ModerationVerdict> moderation = CompletableFuture.supplyAsync(
+                () -> observeStage("imagelify.upload.moderation", upload,
+                        () -> contentModerationService.checkImageForInappropriateContent(file, contentHash)),
+                uploadStageExecutor);
+        // Storage returns its own future, so an asynchronous client does not hold a thread while uploading
+        CompletableFuture<StoredObject> storage = observeStageAsync("imagelify.upload.storage", upload,
+                () -> storageService.uploadFileAsync(file));
+
+        try {
+            return withReservedQuota(user, file.getSize(), upload, () -> {
+                ModerationVerdict verdict = join(moderation);
+                StoredObject stored = join(storage);
+                return saveImage(file, user, stored, contentHash, verdict.status(), upload);
+            });
+        } catch (RuntimeException e) {
+            // The upload may still be in flight; delete the object whenever it lands
+            storage.thenAccept(this::deleteStoredObject);
+            throw e;
+        }
+    }
+
+    /**
+     * Registra un objeto que el cliente ya subió directamente al almacenamiento: lo modera, comprueba el plan
+     * y guarda la imagen. Si se rechaza, o si el contenido ya existía, el objeto subido se encola para borrarlo.
+     */
+    @Override
+    public Image registerStoredUpload(MultipartFile file, StoredObject stored, User user) {
+        Observation upload = Observation.createNotStarted("imagelify.upload", observationRegistry)
+                .contextualName("register direct upload");
+        return upload.observe(() -> {
+            String contentHash = ContentHash.of(file);
+            Optional<Image> duplicate = imageRepository.findFirstByContentHashAndModerationStatus(contentHash,
+                    ModerationStatus.VERIFIED);
+            try {
+                if (duplicate.isPresent()) {
+                    upload.lowCardinalityKeyValue("path", "direct-duplicate");
+                    Image existing = duplicate.get();
+                    Image image = withReservedQuota(user, file.getSize(), upload, () -> saveImage(file, user,
+                            new StoredObject(existing.getStorageKey(), existing.getS3Url()), contentHash,
+                            ModerationStatus.VERIFIED, upload));
+                    deleteStoredObject(stored);
+                    return image;
                 }
+
+                upload.lowCardinalityKeyValue("path", "direct");
+                ModerationVerdict verdict = observeStage("imagelify.upload.moderation", upload,
+                        () -> contentModerationService.checkImageForInappropriateContent(file, contentHash));
+                return withReservedQuota(user, file.getSize(), upload,
+                        () -> saveImage(file, user, stored, contentHash, verdict.status(), upload));
+            } catch (RuntimeException e) {
+                deleteStoredObject(stored);
+                throw e;
             }
+        });
+    }
+
+    private void deleteStoredObject(StoredObject stored) {
+        // Keys are content-addressed: a concurrent upload of the same file may have stored this object and not yet
+        // saved its image. The reaper waits out the grace period and deletes the object only if nothing references it
+        try {
+            storageCleanupService.scheduleDeletion(List.of(stored.key()));
+            log.info("Queued stored object '{}' that was not kept for deletion", stored.key());
+        } catch (RuntimeException e) {
+            // The orphan sweep finds it later
+            log.error("Could not queue stored object '{}' for deletion: {}", stored.key(), e.getMessage());
+        }
+    }
+
+    private <T> T observeStage(String name, Observation parent, Supplier<T> stage) {
+        return Observation.createNotStarted(name, observationRegistry).parentObservation(parent).observe(stage);
+    }
+
+    private <T> CompletableFuture<T> observeStageAsync(String name, Observation parent,
+                                                       Supplier<CompletableFuture<T>> stage) {
+        Observation observation = Observation.createNotStarted(name, observationRegistry).parentObservation(parent).start();
+        CompletableFuture<T> future;
+        try {
+            future = stage.get();
+        } catch (RuntimeException e) {
+            observation.error(e);
+            observation.stop();
+            throw e;
+        }
+        return future.whenComplete((result, error) -> {
+            if (error != null) {
+                observation.error(error instanceof CompletionException ? error.getCause() : error);
+            }
+            observation.stop();
+        });
+    }
+
+    private void runStage(String name, Observation parent, Runnable stage) {
+        Observation.createNotStarted(name, observationRegistry).parentObservation(parent).observe(stage);
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Comprueba el plan del usuario autenticado (cargado junto con él por el filtro JWT) sin reservar cuota,
+     * leyendo su fila de contadores por clave primaria.
+     */
+    @Override
+    public void checkPlanLimits(User user, long fileSize) {
+        checkFileSize(user, fileSize);
+        userUsageService.checkAvailable(user);
+    }
+
+    /**
+     * Comprueba el plan y reserva la imagen en los contadores del usuario antes de guardarla.
+     * Si el resto de la subida falla, la reserva se devuelve.
+     */
+    private Image withReservedQuota(User user, long fileSize, Observation upload, Supplier<Image> rest) {
+        runStage("imagelify.upload.plan-check", upload, () -> {
+            checkFileSize(user, fileSize);
+            userUsageService.reserve(user, fileSize);
+        });
+        try {
+            return rest.get();
+        } catch (RuntimeException e) {
+            userUsageService.release(user.getId(), fileSize);
+            throw e;
         }
+    }
 
-        String fileUrl = storageService.uploadFile(file);
+    @Override
+    public void checkFileSize(User user, long fileSize) {
+        // Define the size limit for free plans (3MB)
+        long freePlanMaxSize = 3 * 1024 * 1024;
 
+        // Check for file size limit on FREE plan
+        if (user.getPlan() != null && "FREE".equalsIgnoreCase(user.getPlan().getName()) && fileSize > freePlanMaxSize) {
+            throw new PlanUpgradeException("File size exceeds the 3MB limit for the FREE plan. Please upgrade your plan for larger uploads.");
+        }
+    }
+
+    private Image saveImage(MultipartFile file, User user, StoredObject stored, String contentHash,
+                            ModerationStatus moderationStatus, Observation upload) {
         Image image = Image.builder()
                 .filename(file.getOriginalFilename())
-                .s3Url(fileUrl)
+                .s3Url(stored.url())
+                .storageKey(stored.key())
+                .contentHash(contentHash)
+                .moderationStatus(moderationStatus)
                 .fileSize(file.getSize())
                 .mimeType(file.getContentType())
                 .uploadDate(LocalDateTime.now())
                 .user(user)
                 .build();
 
-        return imageRepository.save(image);
+        Image saved = observeStage("imagelify.upload.save", upload, () -> imageRepository.save(image));
+        renditionService.generateAsync(saved);
+        return saved;
     }
 
     @Override
-    public List<Image> getImagesByUserId(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return imageRepository.findByUser(user);
+    public List<ImageSummary> getImagePage(Long userId, ImageCursor after, int limit) {
+        // Listings may come from the read replica, if there is one: a new upload can show up a moment later
+        List<ImageSummary> page = ReadReplica.query(() -> after == null
+                ? imageRepository.findFirstPage(userId, Limit.of(limit))
+                : imageRepository.findPageAfter(userId, after.uploadDate(), after.id(), Limit.of(limit)));
+
+        // Read URLs for the whole page are resolved (and, if presigned, signed) in one batch. An image without a key
+        // (stored before keys were recorded and not backfilled) keeps the URL it was saved with
+        Map<String, String> urls = storageService.readUrls(page.stream()
+                .map(ImageSummary::storageKey)
+                .filter(Objects::nonNull)
+                .toList());
+        return page.stream()
+                .map(image -> image.storageKey() == null ? image : image.withUrl(urls.get(image.storageKey())))
+                .toList();
+    }
+
+    @Override
+    public Optional<Image> getImage(Long imageId, Long userId) {
+        return imageRepository.findByIdAndUserId(imageId, userId);
     }
-}
 
+    /**
+     * Borra imágenes del usuario y devuelve su cuota. Las filas desaparecen en esta transacción; los objetos
+     * (original y miniaturas) quedan encolados y el reaper los borra del almacenamiento si nada más los usa.
+     * @param imageIds Ids de las imágenes; los que no existen o son de otro usuario se ignoran.
+     * @param userId Usuario autenticado.
+     * @return Los ids de las imágenes borradas.
+     */
+    @Override
+    @Transactional
+    public List<Long> deleteImages(Collection<Long> imageIds, Long userId) {
+        List<Image> images = imageRepository.findForDeletion(imageIds, userId);
+        if (images.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = images.stream().map(Image::getId).toList();
+
+        Set<String> keys = new LinkedHashSet<>();
+        images.stream().map(Image::getStorageKey).filter(Objects::nonNull).forEach(keys::add);
+        keys.addAll(imageRenditionRepository.findStorageKeysByImageIds(ids));
+
+        imageRenditionRepository.deleteByImageIds(ids);
+        imageRepository.deleteAllByIdInBatch(ids);
+        storageCleanupService.scheduleDeletion(keys);
+        userUsageService.release(userId, images.size(), images.stream().mapToLong(Image::getFileSize).sum());
+        return ids;
+    }
+}
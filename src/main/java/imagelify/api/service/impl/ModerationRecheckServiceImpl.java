@@ -0,0 +1,117 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.dto.ModerationVerdict;
+import imagelify.api.entity.Image;
+import imagelify.api.entity.ModerationStatus;
+import imagelify.api.exception.ModerationUnavailableException;
+import imagelify.api.repository.ImageRepository;
+import imagelify.api.service.ContentModerationService;
+import imagelify.api.service.ImageService;
+import imagelify.api.service.ModerationRecheckService;
+import imagelify.api.service.StorageService;
+import imagelify.api.upload.StagedUpload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Vuelve a moderar las imágenes que se aceptaron sin verificar mientras el proveedor no respondía
+ * (sightengine.failure-policy=OPEN). El contenido aprobado pasa a VERIFIED; el rechazado se borra.
+ */
+@Service
+@Slf4j
+public class ModerationRecheckServiceImpl implements ModerationRecheckService {
+
+    private final ImageRepository imageRepository;
+    private final ImageService imageService;
+    private final StorageService storageService;
+    private final ContentModerationService contentModerationService;
+
+    @Value("${moderation.recheck.batch-size:100}")
+    private int batchSize;
+
+    public ModerationRecheckServiceImpl(ImageRepository imageRepository,
+                                        ImageService imageService,
+                                        StorageService storageService,
+                                        ContentModerationService contentModerationService) {
+        this.imageRepository = imageRepository;
+        this.imageService = imageService;
+        this.storageService = storageService;
+        this.contentModerationService = contentModerationService;
+    }
+
+    @Scheduled(fixedDelayString = "${moderation.recheck.interval:5m}", initialDelayString = "${moderation.recheck.interval:5m}")
+    public void recheck() {
+        try {
+            recheckUnverified();
+        } catch (RuntimeException e) {
+            log.error("Moderation recheck failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Modera cada contenido sin verificar una sola vez, aunque lo compartan varias imágenes, y aplica el veredicto
+     * a todas ellas. Si el proveedor sigue sin responder, la pasada termina y se reintenta en la siguiente.
+     * @return El número de contenidos moderados.
+     */
+    @Override
+    public int recheckUnverified() {
+        int rechecked = 0;
+        for (String contentHash : imageRepository.findContentHashesByModerationStatus(ModerationStatus.UNVERIFIED,
+                Limit.of(batchSize))) {
+            List<Image> images = imageRepository.findByContentHashAndModerationStatus(contentHash,
+                    ModerationStatus.UNVERIFIED);
+            if (images.isEmpty()) {
+                continue;
+            }
+            ModerationVerdict verdict = moderate(images.getFirst());
+            if (!verdict.verified()) {
+                log.info("Moderation still unavailable, unverified images left for the next recheck: {}", verdict.reason());
+                break;
+            }
+            apply(contentHash, images, verdict);
+            rechecked++;
+        }
+        return rechecked;
+    }
+
+    private ModerationVerdict moderate(Image image) {
+        Path path;
+        try {
+            path = Files.createTempFile("moderation-recheck-", null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try (StagedUpload file = new StagedUpload(path, image.getFilename(), image.getMimeType(),
+                image.getFileSize(), image.getContentHash())) {
+            storageService.downloadFile(image.getStorageKey(), path);
+            return contentModerationService.moderate(file, image.getContentHash());
+        } catch (ModerationUnavailableException e) {
+            // Fail-closed providers throw instead of answering unverified
+            return ModerationVerdict.unverified(e.getMessage());
+        }
+    }
+
+    private void apply(String contentHash, List<Image> images, ModerationVerdict verdict) {
+        if (verdict.approved()) {
+            imageRepository.updateModerationStatus(contentHash, ModerationStatus.UNVERIFIED, ModerationStatus.VERIFIED);
+            log.info("Content {} of {} unverified images approved on recheck", contentHash, images.size());
+            return;
+        }
+        // Deleting releases the owners' quota and queues the stored objects for removal
+        Map<Long, List<Long>> idsByUser = images.stream().collect(Collectors.groupingBy(
+                image -> image.getUser().getId(), Collectors.mapping(Image::getId, Collectors.toList())));
+        idsByUser.forEach((userId, ids) -> imageService.deleteImages(ids, userId));
+        log.warn("Content {} rejected on recheck ({}), deleted {} images", contentHash, verdict.reason(), images.size());
+    }
+}
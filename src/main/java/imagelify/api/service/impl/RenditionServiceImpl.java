@@ -0,0 +1,181 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.dto.StoredObject;
+import imagelify.api.entity.Image;
+import imagelify.api.entity.ImageRendition;
+import imagelify.api.imaging.ImageDownscaler;
+import imagelify.api.repository.ImageRenditionRepository;
+import imagelify.api.service.RenditionService;
+import imagelify.api.service.StorageService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Genera miniaturas y vistas previas de cada imagen en un pool dedicado y las guarda junto al original.
+ */
+@Service
+@Slf4j
+public class RenditionServiceImpl implements RenditionService {
+
+    private final StorageService storageService;
+    private final ImageRenditionRepository imageRenditionRepository;
+    private final ImageDownscaler imageDownscaler;
+    private final TaskExecutor renditionExecutor;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Value("${renditions.enabled:true}")
+    private boolean enabled;
+
+    @Value("${renditions.sizes:thumbnail=256,preview=1024}")
+    private String sizes;
+
+    @Value("${renditions.format:jpg}")
+    private String format;
+
+    private Map<String, Integer> renditionSizes;
+
+    public RenditionServiceImpl(StorageService storageService,
+                                ImageRenditionRepository imageRenditionRepository,
+                                ImageDownscaler imageDownscaler,
+                                @Qualifier("renditionExecutor") TaskExecutor renditionExecutor) {
+        this.storageService = storageService;
+        this.imageRenditionRepository = imageRenditionRepository;
+        this.imageDownscaler = imageDownscaler;
+        this.renditionExecutor = renditionExecutor;
+    }
+
+    @PostConstruct
+    public void init() {
+        renditionSizes = new LinkedHashMap<>();
+        for (String entry : sizes.split(",")) {
+            String[] parts = entry.trim().split("=");
+            renditionSizes.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        // WebP needs an ImageIO plugin on the classpath; without one fall back to JPEG
+        if (!ImageIO.getImageWritersByFormatName(format).hasNext()) {
+            log.warn("No ImageIO writer for rendition format '{}', using jpg instead.", format);
+            format = "jpg";
+        }
+    }
+
+    @Override
+    public void generateAsync(Image image) {
+        if (!enabled || image.getId() == null || image.getStorageKey() == null || !inFlight.add(image.getId())) {
+            return;
+        }
+        try {
+            renditionExecutor.execute(() -> {
+                try {
+                    generate(image);
+                } catch (IOException | RuntimeException e) {
+                    log.error("Could not generate renditions for image {}: {}", image.getId(), e.getMessage());
+                } finally {
+                    inFlight.remove(image.getId());
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // Missing renditions are generated again the next time they are requested
+            inFlight.remove(image.getId());
+            log.warn("Rendition queue full, skipping image {} for now.", image.getId());
+        }
+    }
+
+    @Override
+    public Optional<ImageRendition> getRendition(Image image, String name) {
+        Optional<ImageRendition> rendition = imageRenditionRepository.findByImageAndName(image, name);
+        if (rendition.isEmpty() && renditionSizes.containsKey(name)) {
+            generateAsync(image);
+        }
+        return rendition;
+    }
+
+    private void generate(Image image) throws IOException {
+        Map<String, Integer> missing = new LinkedHashMap<>(renditionSizes);
+        imageRenditionRepository.findByImage(image).forEach(existing -> missing.remove(existing.getName()));
+
+        // Deduplicated uploads share the stored original, so they can share its renditions too
+        for (ImageRendition shared : imageRenditionRepository.findByImageStorageKey(image.getStorageKey())) {
+            if (missing.remove(shared.getName()) != null) {
+                imageRenditionRepository.save(copyFor(image, shared));
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Path original = Files.createTempFile("rendition-src-", null);
+        try {
+            storageService.downloadFile(image.getStorageKey(), original);
+            for (Map.Entry<String, Integer> size : missing.entrySet()) {
+                imageRenditionRepository.save(render(image, original, size.getKey(), size.getValue()));
+            }
+        } finally {
+            Files.deleteIfExists(original);
+        }
+    }
+
+    private ImageRendition render(Image image, Path original, String name, int maxDimension) throws IOException {
+        Optional<Path> scaled;
+        try (InputStream in = Files.newInputStream(original)) {
+            scaled = imageDownscaler.downscale(in, maxDimension, format);
+        }
+
+        ImageRendition.ImageRenditionBuilder rendition = ImageRendition.builder()
+                .image(image)
+                .name(name)
+                .maxDimension(maxDimension);
+
+        if (scaled.isEmpty()) {
+            // Already small enough (or not decodable): the original serves as this rendition
+            return rendition
+                    .storageKey(image.getStorageKey())
+                    .url(image.getS3Url())
+                    .mimeType(image.getMimeType())
+                    .fileSize(image.getFileSize())
+                    .build();
+        }
+
+        try {
+            String mimeType = "jpg".equals(format) ? "image/jpeg" : "image/" + format;
+            StoredObject stored = storageService.uploadFile(
+                    image.getStorageKey() + "." + name + "." + format, scaled.get(), mimeType);
+            return rendition
+                    .storageKey(stored.key())
+                    .url(stored.url())
+                    .mimeType(mimeType)
+                    .fileSize(Files.size(scaled.get()))
+                    .build();
+        } finally {
+            Files.deleteIfExists(scaled.get());
+        }
+    }
+
+    private static ImageRendition copyFor(Image image, ImageRendition shared) {
+        return ImageRendition.builder()
+                .image(image)
+                .name(shared.getName())
+                .storageKey(shared.getStorageKey())
+                .url(shared.getUrl())
+                .mimeType(shared.getMimeType())
+                .maxDimension(shared.getMaxDimension())
+                .fileSize(shared.getFileSize())
+                .build();
+    }
+}
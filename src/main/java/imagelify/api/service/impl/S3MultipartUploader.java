@@ -0,0 +1,258 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.upload.StagedUpload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.ContentStreamProvider;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Motor de subida multipart: divide el objeto en partes, las sube en paralelo sobre un pool acotado,
+ * reintenta cada parte fallida y aborta la subida si alguna parte no se puede completar.
+ */
+@Component
+@Slf4j
+public class S3MultipartUploader {
+
+    // S3 rejects parts smaller than 5MB (except the last one)
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    private final S3Client s3Client;
+    private final AsyncTaskExecutor partUploadExecutor;
+
+    @Value("${storage.multipart.part-size:8MB}")
+    private DataSize partSize;
+
+    @Value("${storage.multipart.max-parts-in-flight:4}")
+    private int maxPartsInFlight;
+
+    @Value("${storage.multipart.max-attempts:3}")
+    private int maxAttempts;
+
+    public S3MultipartUploader(S3Client s3Client,
+                               @Qualifier("partUploadExecutor") AsyncTaskExecutor partUploadExecutor) {
+        this.s3Client = s3Client;
+        this.partUploadExecutor = partUploadExecutor;
+    }
+
+    /**
+     * Sube el archivo como una subida multipart.
+     * @param createRequest Petición de creación con bucket, clave y metadatos del objeto.
+     * @param file Archivo a subir. Las subidas preparadas en disco se leen por regiones sin buffer intermedio.
+     */
+    public void upload(CreateMultipartUploadRequest createRequest, MultipartFile file) {
+        String bucket = createRequest.bucket();
+        String key = createRequest.key();
+        String uploadId = s3Client.createMultipartUpload(createRequest).uploadId();
+        log.debug("Started multipart upload {} for '{}' ({} bytes)", uploadId, key, file.getSize());
+
+        try {
+            List<CompletedPart> parts = uploadParts(bucket, key, uploadId, file);
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+        } catch (RuntimeException e) {
+            abort(bucket, key, uploadId);
+            throw e;
+        }
+    }
+
+    private List<CompletedPart> uploadParts(String bucket, String key, String uploadId, MultipartFile file) {
+        long size = file.getSize();
+        long chunk = Math.max(partSize.toBytes(), MIN_PART_SIZE);
+        Semaphore inFlight = new Semaphore(maxPartsInFlight);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        List<CompletableFuture<CompletedPart>> futures = new ArrayList<>();
+        RuntimeException readFailure = null;
+
+        try (InputStream sequential = file instanceof StagedUpload ? null : file.getInputStream()) {
+            int partNumber = 1;
+            for (long offset = 0; offset < size && !failed.get(); offset += chunk, partNumber++) {
+                long length = Math.min(chunk, size - offset);
+                acquire(inFlight);
+                // Stream sources are read sequentially into one buffer per in-flight part;
+                // staged files are read by region on the upload thread itself.
+                ContentStreamProvider content = file instanceof StagedUpload staged
+                        ? fileRegion(staged.getPath(), offset, length)
+                        : buffered(sequential, (int) length);
+                UploadPartRequest partRequest = UploadPartRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength(length)
+                        .build();
+                futures.add(CompletableFuture
+                        .supplyAsync(() -> failed.get() ? null : uploadPart(partRequest, content, length), partUploadExecutor)
+                        .whenComplete((part, error) -> {
+                            inFlight.release();
+                            if (error != null) {
+                                failed.set(true);
+                            }
+                        }));
+            }
+        } catch (IOException e) {
+            failed.set(true);
+            readFailure = new UncheckedIOException("Could not read file for multipart upload", e);
+        }
+
+        // Wait for every part in flight before returning, so an abort never races a running part
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (readFailure != null) {
+                throw readFailure;
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        if (readFailure != null) {
+            throw readFailure;
+        }
+        return futures.stream()
+                .map(CompletableFuture::join)
+                .sorted(Comparator.comparing(CompletedPart::partNumber))
+                .toList();
+    }
+
+    private CompletedPart uploadPart(UploadPartRequest partRequest, ContentStreamProvider content, long length) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                String eTag = s3Client.uploadPart(partRequest, RequestBody.fromContentProvider(content, length, "application/octet-stream")).eTag();
+                return CompletedPart.builder().partNumber(partRequest.partNumber()).eTag(eTag).build();
+            } catch (SdkException | UncheckedIOException e) {
+                if (attempt >= maxAttempts) {
+                    log.error("Part {} of upload {} failed after {} attempts: {}",
+                            partRequest.partNumber(), partRequest.uploadId(), attempt, e.getMessage());
+                    throw e;
+                }
+                log.warn("Retrying part {} of upload {} (attempt {}): {}",
+                        partRequest.partNumber(), partRequest.uploadId(), attempt, e.getMessage());
+                sleepBeforeRetry(attempt);
+            }
+        }
+    }
+
+    private void abort(String bucket, String key, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+            log.warn("Aborted multipart upload {} for '{}'", uploadId, key);
+        } catch (SdkException e) {
+            log.error("Could not abort multipart upload {} for '{}': {}", uploadId, key, e.getMessage());
+        }
+    }
+
+    private static ContentStreamProvider fileRegion(Path path, long offset, long length) {
+        return () -> {
+            try {
+                FileChannel channel = FileChannel.open(path, StandardOpenOption.READ).position(offset);
+                return new BoundedInputStream(Channels.newInputStream(channel), length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private static ContentStreamProvider buffered(InputStream in, int length) throws IOException {
+        byte[] buffer = in.readNBytes(length);
+        if (buffer.length != length) {
+            throw new IOException("Unexpected end of stream: expected " + length + " bytes, got " + buffer.length);
+        }
+        return () -> new ByteArrayInputStream(buffer);
+    }
+
+    private static void acquire(Semaphore semaphore) {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a part upload slot", e);
+        }
+    }
+
+    private static void sleepBeforeRetry(int attempt) {
+        try {
+            Thread.sleep(100L * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying part upload", e);
+        }
+    }
+
+    /**
+     * Limita la lectura de un flujo a una región de longitud fija.
+     */
+    private static final class BoundedInputStream extends InputStream {
+        private final InputStream delegate;
+        private long remaining;
+
+        private BoundedInputStream(InputStream delegate, long length) {
+            this.delegate = delegate;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = delegate.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = delegate.read(b, off, (int) Math.min(len, remaining));
+            if (n != -1) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -1,30 +1,88 @@
 package imagelify.api.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import imagelify.api.config.S3Config.ReadUrlStrategy;
+import imagelify.api.dto.PresignedUpload;
+import imagelify.api.dto.StoredContent;
+import imagelify.api.dto.StoredObject;
 import imagelify.api.service.StorageService;
+import imagelify.api.upload.ContentHash;
+import imagelify.api.upload.StagedUpload;
 import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import org.springframework.web.util.UriUtils;
 import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutBucketPolicyRequest;
 import software.amazon.awssdk.services.s3.model.ObjectCannedACL;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Error;
 import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
-import java.util.UUID;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@ConditionalOnProperty(name = "storage.client", havingValue = "SYNC", matchIfMissing = true)
 @Slf4j
 public class S3Service implements StorageService {
 
+    // Limit of a DeleteObjects request
+    static final int MAX_KEYS_PER_DELETE = 1000;
+
     private final S3Client s3Client;
+    private final S3MultipartUploader multipartUploader;
+    private final S3Presigner s3Presigner;
+    private final ObservationRegistry observationRegistry;
+    private final DistributionSummary singleUploadBytes;
+    private final DistributionSummary multipartUploadBytes;
 
     @Value("${minio.bucket-name}")
     private String bucketName;
@@ -32,16 +90,54 @@ public class S3Service implements StorageService {
     @Value("${minio.public-url}")
     private String minioPublicUrl;
 
-    public S3Service(S3Client s3Client) {
+    @Value("${storage.multipart.threshold:16MB}")
+    private DataSize multipartThreshold;
+
+    @Value("${storage.presign.ttl:10m}")
+    private Duration presignTtl;
+
+    @Value("${storage.read-urls.strategy:PUBLIC}")
+    private ReadUrlStrategy readUrlStrategy;
+
+    @Value("${storage.read-urls.ttl:1h}")
+    private Duration readUrlTtl;
+
+    @Value("${storage.cache-control:public, max-age=31536000, immutable}")
+    private String cacheControl;
+
+    private Cache<String, String> signedReadUrls;
+
+    public S3Service(S3Client s3Client, S3MultipartUploader multipartUploader, S3Presigner s3Presigner,
+                     ObservationRegistry observationRegistry, MeterRegistry meterRegistry) {
         this.s3Client = s3Client;
+        this.multipartUploader = multipartUploader;
+        this.s3Presigner = s3Presigner;
+        this.observationRegistry = observationRegistry;
+        this.singleUploadBytes = uploadBytes(meterRegistry, "single");
+        this.multipartUploadBytes = uploadBytes(meterRegistry, "multipart");
+    }
+
+    static DistributionSummary uploadBytes(MeterRegistry meterRegistry, String mode) {
+        return DistributionSummary.builder("imagelify.storage.upload.bytes")
+                .description("Size of the objects uploaded to the Object Storage")
+                .baseUnit("bytes")
+                .tag("mode", mode)
+                .register(meterRegistry);
     }
 
     /**
      * Se ejecuta al iniciar la aplicación.
-     * Verifica la existencia del bucket y, si es necesario, lo crea y establece la política de lectura pública.
+     * Verifica la existencia del bucket y, si es necesario, lo crea. La política de lectura pública solo se aplica
+     * con la estrategia {@code PUBLIC}; con {@code PRESIGNED} el bucket queda privado.
      */
     @PostConstruct
     public void init() {
+        // A signed URL is handed out again for half its lifetime, so repeat views hit browser and CDN caches
+        signedReadUrls = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(readUrlTtl.dividedBy(2))
+                .build();
+
         boolean bucketExists = true;
         try {
             s3Client.headBucket(HeadBucketRequest.builder().bucket(bucketName).build());
@@ -62,6 +158,11 @@ public class S3Service implements StorageService {
             }
         }
 
+        if (readUrlStrategy != ReadUrlStrategy.PUBLIC) {
+            log.info("S3 Bucket '{}' is not made public; read URLs are presigned.", bucketName);
+            return;
+        }
+
         // Always try to set the public policy to ensure it's correctly configured
         try {
             setPublicPolicy(bucketName);
@@ -106,30 +207,280 @@ public class S3Service implements StorageService {
     }
 
     /**
-     * Sube el archivo al Object Storage.
+     * Sube el archivo al Object Storage con una clave derivada de su contenido, marcado como inmutable para las cachés.
+     * Los archivos por encima del umbral configurado se suben en partes paralelas.
      * @param file Archivo multipart a subir.
-     * @return La URL pública del archivo subido.
+     * @return La clave y la URL pública del archivo subido.
      */
     @Override
-    public String uploadFile(MultipartFile file) {
-        try {
-            String fileName = UUID.randomUUID().toString() + "-" + file.getOriginalFilename();
+    public StoredObject uploadFile(MultipartFile file) {
+        boolean multipart = file.getSize() > multipartThreshold.toBytes();
+        StoredObject stored = Observation.createNotStarted("imagelify.storage.upload", observationRegistry)
+                .lowCardinalityKeyValue("mode", multipart ? "multipart" : "single")
+                .observe(() -> putFile(file, multipart));
+        (multipart ? multipartUploadBytes : singleUploadBytes).record(file.getSize());
+        return stored;
+    }
 
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(fileName)
-                    .contentType(file.getContentType())
-                    .acl(ObjectCannedACL.PUBLIC_READ)
-                    .build();
+    private StoredObject putFile(MultipartFile file, boolean multipart) {
+        try {
+            String fileName = newObjectKey(ContentHash.of(file), file.getOriginalFilename());
 
-            s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(file.getInputStream(), file.getSize()));
+            if (multipart) {
+                CreateMultipartUploadRequest createRequest = CreateMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(fileName)
+                        .contentType(file.getContentType())
+                        .cacheControl(cacheControl)
+                        .acl(objectAcl())
+                        .build();
+                multipartUploader.upload(createRequest, file);
+            } else {
+                s3Client.putObject(putObjectRequest(fileName, file.getContentType()), requestBody(file));
+            }
 
-            String encodedFileName = UriUtils.encode(fileName, StandardCharsets.UTF_8);
-            return String.format("%s/%s/%s", minioPublicUrl, bucketName, encodedFileName);
+            return new StoredObject(fileName, publicUrl(fileName));
 
-        } catch (IOException | S3Exception e) {
+        } catch (IOException | SdkException | UncheckedIOException e) {
             log.error("Error uploading file: {}", e.getMessage());
             throw new RuntimeException("Error uploading file to S3-compatible storage: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Sube un archivo local con una clave concreta (por ejemplo, una miniatura junto a su original).
+     * @param key Clave del objeto dentro del bucket.
+     * @param file Archivo local a subir.
+     * @param contentType Tipo MIME del objeto.
+     * @return La clave y la URL pública del objeto.
+     */
+    @Override
+    public StoredObject uploadFile(String key, Path file, String contentType) {
+        try {
+            s3Client.putObject(putObjectRequest(key, contentType), RequestBody.fromFile(file));
+            return new StoredObject(key, publicUrl(key));
+        } catch (SdkException | UncheckedIOException e) {
+            log.error("Error uploading file '{}': {}", key, e.getMessage());
+            throw new RuntimeException("Error uploading file to S3-compatible storage: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Descarga un objeto a un archivo local en streaming.
+     * @param key Clave del objeto dentro del bucket.
+     * @param target Archivo de destino; se sobrescribe si existe.
+     */
+    @Override
+    public void downloadFile(String key, Path target) {
+        try (ResponseInputStream<GetObjectResponse> in = s3Client.getObject(getObjectRequest(key))) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | SdkException e) {
+            log.error("Error downloading file '{}': {}", key, e.getMessage());
+            throw new RuntimeException("Error downloading file from S3-compatible storage: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Elimina un objeto del Object Storage.
+     * @param key Clave del objeto dentro del bucket.
+     */
+    @Override
+    public void deleteFile(String key) {
+        try {
+            s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucketName).key(key).build());
+        } catch (SdkException e) {
+            log.error("Error deleting file '{}': {}", key, e.getMessage());
+            throw new RuntimeException("Error deleting file from S3-compatible storage: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Borra varios objetos con {@code DeleteObjects}, en peticiones de hasta 1000 claves.
+     * @param keys Claves de los objetos; las que ya no existen cuentan como borradas.
+     * @return Las claves que no se pudieron borrar.
+     */
+    @Override
+    public Set<String> deleteFiles(Collection<String> keys) {
+        List<String> pending = List.copyOf(keys);
+        Set<String> failed = new HashSet<>();
+        for (int from = 0; from < pending.size(); from += MAX_KEYS_PER_DELETE) {
+            List<String> chunk = pending.subList(from, Math.min(pending.size(), from + MAX_KEYS_PER_DELETE));
+            try {
+                // Quiet mode: the response lists only the keys that failed
+                DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                        .bucket(bucketName)
+                        .delete(Delete.builder()
+                                .objects(chunk.stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList())
+                                .quiet(true)
+                                .build())
+                        .build());
+                for (S3Error error : response.errors()) {
+                    log.warn("Error deleting file '{}': {} {}", error.key(), error.code(), error.message());
+                    failed.add(error.key());
+                }
+            } catch (SdkException e) {
+                log.error("Error deleting {} files: {}", chunk.size(), e.getMessage());
+                failed.addAll(chunk);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Recorre el bucket con {@code ListObjectsV2}; cada página se pide cuando el stream la necesita.
+     * @param modifiedBefore Solo se devuelven los objetos modificados antes de este instante.
+     * @return Las claves de los objetos.
+     */
+    @Override
+    public Stream<String> listKeys(Instant modifiedBefore) {
+        return s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder().bucket(bucketName).build())
+                .contents()
+                .stream()
+                .filter(object -> object.lastModified().isBefore(modifiedBefore))
+                .map(S3Object::key);
+    }
+
+    /**
+     * Firma una petición PUT para que el cliente suba el objeto directamente al bucket.
+     * El tipo, la longitud y el {@code Cache-Control} forman parte de la firma, así que el cliente debe enviarlos tal cual.
+     * @param key Clave del objeto dentro del bucket.
+     * @param contentType Tipo MIME que el cliente debe enviar.
+     * @param contentLength Tamaño exacto en bytes que el cliente debe enviar.
+     * @return La URL firmada, las cabeceras que hay que enviar con ella y su caducidad.
+     */
+    @Override
+    public PresignedUpload presignUpload(String key, String contentType, long contentLength) {
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .contentLength(contentLength)
+                .cacheControl(cacheControl)
+                .build();
+
+        PresignedPutObjectRequest presigned = s3Presigner.presignPutObject(PutObjectPresignRequest.builder()
+                .signatureDuration(presignTtl)
+                .putObjectRequest(putObjectRequest)
+                .build());
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        presigned.signedHeaders().forEach((name, values) -> {
+            // The HTTP client sets Host itself
+            if (!"host".equalsIgnoreCase(name)) {
+                headers.put(name, String.join(",", values));
+            }
+        });
+        return new PresignedUpload(key, presigned.url().toString(), presigned.httpRequest().method().name(),
+                headers, presigned.expiration());
+    }
+
+    /**
+     * Abre un objeto para leerlo en streaming.
+     * @param key Clave del objeto dentro del bucket.
+     * @return El contenido del objeto, o vacío si no existe. El llamador debe cerrarlo.
+     */
+    @Override
+    public Optional<StoredContent> openFile(String key) {
+        try {
+            ResponseInputStream<GetObjectResponse> in = s3Client.getObject(getObjectRequest(key));
+            GetObjectResponse response = in.response();
+            return Optional.of(new StoredContent(in, response.contentType(),
+                    response.contentLength() == null ? -1 : response.contentLength()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (SdkException e) {
+            log.error("Error opening file '{}': {}", key, e.getMessage());
+            throw new RuntimeException("Error reading file from S3-compatible storage: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * URL de lectura de un objeto según la estrategia configurada.
+     * @param key Clave del objeto dentro del bucket.
+     * @return La URL pública, o una URL firmada de corta duración.
+     */
+    @Override
+    public String readUrl(String key) {
+        return readUrls(Set.of(key)).get(key);
+    }
+
+    /**
+     * URLs de lectura de varios objetos a la vez, para los listados. Las URLs firmadas se reutilizan
+     * mientras les quede al menos media vida, de modo que la misma imagen conserva su URL entre peticiones.
+     * @param keys Claves de los objetos.
+     * @return Un mapa de clave a URL de lectura.
+     */
+    @Override
+    public Map<String, String> readUrls(Collection<String> keys) {
+        if (readUrlStrategy == ReadUrlStrategy.PUBLIC) {
+            return keys.stream().distinct().collect(Collectors.toMap(Function.identity(), this::publicUrl));
+        }
+        return signedReadUrls.getAll(keys, this::presignReads);
+    }
+
+    private Map<String, String> presignReads(Set<? extends String> keys) {
+        Map<String, String> urls = new HashMap<>(keys.size());
+        for (String key : keys) {
+            GetObjectPresignRequest request = GetObjectPresignRequest.builder()
+                    .signatureDuration(readUrlTtl)
+                    .getObjectRequest(getObjectRequest(key))
+                    .build();
+            urls.put(key, s3Presigner.presignGetObject(request).url().toString());
+        }
+        return urls;
+    }
+
+    /**
+     * Clave direccionada por contenido: el mismo archivo produce siempre la misma clave, y una clave nunca cambia
+     * de contenido, lo que permite cachear los objetos como inmutables. Se conserva la extensión del original.
+     */
+    String newObjectKey(String contentHash, String originalFilename) {
+        return contentHash + extension(originalFilename);
+    }
+
+    private static String extension(String filename) {
+        if (filename == null) {
+            return "";
+        }
+        int dot = filename.lastIndexOf('.');
+        String extension = dot < 0 ? "" : filename.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return !extension.isEmpty() && extension.length() <= 10 && extension.chars().allMatch(c -> (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9'))
+                ? "." + extension
+                : "";
+    }
+
+    private ObjectCannedACL objectAcl() {
+        return readUrlStrategy == ReadUrlStrategy.PUBLIC ? ObjectCannedACL.PUBLIC_READ : null;
+    }
+
+    PutObjectRequest putObjectRequest(String key, String contentType) {
+        return PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .cacheControl(cacheControl)
+                .acl(objectAcl())
+                .build();
+    }
+
+    GetObjectRequest getObjectRequest(String key) {
+        return GetObjectRequest.builder().bucket(bucketName).key(key).build();
+    }
+
+    @Override
+    public String publicUrl(String key) {
+        // Keys may contain '/' (e.g. per-user prefixes), which must stay path separators
+        String encodedFileName = UriUtils.encodePath(key, StandardCharsets.UTF_8);
+        return String.format("%s/%s/%s", minioPublicUrl, bucketName, encodedFileName);
+    }
+
+    /**
+     * Las subidas preparadas en disco se envían desde el archivo, lo que permite reintentos sin buffer en memoria.
+     */
+    private RequestBody requestBody(MultipartFile file) throws IOException {
+        if (file instanceof StagedUpload staged) {
+            return RequestBody.fromFile(staged.getPath());
+        }
+        return RequestBody.fromInputStream(file.getInputStream(), file.getSize());
+    }
+}
@@ -1,27 +1,56 @@
 package imagelify.api.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import imagelify.api.dto.ModerationVerdict;
+import imagelify.api.exception.ModerationUnavailableException;
+import imagelify.api.imaging.ImageDownscaler;
 import imagelify.api.service.ContentModerationService;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 @Service
 @Slf4j
 public class SightengineServiceImpl implements ContentModerationService {
 
+    /**
+     * Qué hacer cuando el proveedor no responde o el circuito está abierto:
+     * OPEN deja pasar la subida sin verificar (se guarda como UNVERIFIED y se vuelve a moderar más tarde),
+     * CLOSED la bloquea.
+     */
+    public enum FailurePolicy {
+        OPEN,
+        CLOSED
+    }
+
     private final RestTemplate restTemplate;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final ImageDownscaler imageDownscaler;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Value("${sightengine.api-user}")
@@ -30,14 +59,84 @@ public class SightengineServiceImpl implements ContentModerationService {
     @Value("${sightengine.api-secret}")
     private String apiSecret;
 
-    private static final String SIGHTENGINE_API_URL = "https://api.sightengine.com/1.0/check.json";
+    @Value("${sightengine.api-url:https://api.sightengine.com/1.0/check.json}")
+    private String apiUrl;
+
+    @Value("${sightengine.failure-policy:CLOSED}")
+    private FailurePolicy failurePolicy;
+
+    @Value("${sightengine.proxy.enabled:true}")
+    private boolean proxyEnabled;
 
-    public SightengineServiceImpl(RestTemplate restTemplate) {
+    @Value("${sightengine.proxy.min-size:1MB}")
+    private DataSize proxyMinSize;
+
+    @Value("${sightengine.proxy.max-dimension:1280}")
+    private int proxyMaxDimension;
+
+    public SightengineServiceImpl(RestTemplate restTemplate,
+                                  @Qualifier("sightengineCircuitBreaker") CircuitBreaker circuitBreaker,
+                                  @Qualifier("sightengineBulkhead") Bulkhead bulkhead,
+                                  ImageDownscaler imageDownscaler) {
         this.restTemplate = restTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.imageDownscaler = imageDownscaler;
     }
 
     @Override
-    public void checkImageForInappropriateContent(MultipartFile file) {
+    public ModerationVerdict moderate(MultipartFile file, String contentHash) {
+        // Downscale outside the bulkhead so CPU work does not hold a provider slot
+        Optional<Path> proxy = createProxy(file);
+        Resource media = proxy.<Resource>map(FileSystemResource::new).orElseGet(file::getResource);
+        try {
+            Supplier<ModerationVerdict> call = Bulkhead.decorateSupplier(bulkhead,
+                    CircuitBreaker.decorateSupplier(circuitBreaker, () -> callSightengine(media)));
+            return call.get();
+        } catch (CallNotPermittedException | BulkheadFullException | RestClientException | ModerationUnavailableException e) {
+            return handleUnavailable(e);
+        } finally {
+            proxy.ifPresent(this::deleteQuietly);
+        }
+    }
+
+    /**
+     * Imagen reducida para moderar archivos grandes: el proveedor clasifica igual a baja resolución
+     * y se envían unos pocos cientos de KB en lugar del original completo. Las imágenes animadas se envían
+     * completas: la versión reducida solo tendría el primer fotograma y el resto quedaría sin moderar.
+     */
+    private Optional<Path> createProxy(MultipartFile file) {
+        if (!proxyEnabled || file.getSize() <= proxyMinSize.toBytes()) {
+            return Optional.empty();
+        }
+        try (InputStream in = file.getInputStream()) {
+            return imageDownscaler.downscaleStill(in, proxyMaxDimension, "jpg");
+        } catch (IOException | RuntimeException e) {
+            log.debug("Could not build moderation proxy for '{}', sending original: {}", file.getOriginalFilename(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete moderation proxy {}: {}", path, e.getMessage());
+        }
+    }
+
+    private ModerationVerdict handleUnavailable(RuntimeException e) {
+        if (failurePolicy == FailurePolicy.OPEN) {
+            log.warn("Content moderation unavailable, allowing upload unverified (fail-open): {}", e.getMessage());
+            return ModerationVerdict.unverified("Content moderation unavailable: " + e.getMessage());
+        }
+        log.warn("Content moderation unavailable, blocking upload (fail-closed): {}", e.getMessage());
+        throw e instanceof ModerationUnavailableException unavailable
+                ? unavailable
+                : new ModerationUnavailableException("Content moderation is temporarily unavailable. Please retry later.", e);
+    }
+
+    private ModerationVerdict callSightengine(Resource media) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.MULTIPART_FORM_DATA);
 
@@ -46,38 +145,31 @@ public class SightengineServiceImpl implements ContentModerationService {
         body.add("api_user", apiUser);
         body.add("api_secret", apiSecret);
 
-        try {
-            ByteArrayResource fileAsResource = new ByteArrayResource(file.getBytes()) {
-                @Override
-                public String getFilename() {
-                    return file.getOriginalFilename();
-                }
-            };
-            body.add("media", fileAsResource);
-        } catch (IOException e) {
-            log.error("Could not read file for moderation", e);
-            throw new RuntimeException("Could not read file for moderation.", e);
-        }
+        // The resource is streamed into the multipart body through a fixed-size buffer, never as a byte[]
+        body.add("media", media);
 
         HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
 
-        String responseJson = restTemplate.postForObject(SIGHTENGINE_API_URL, requestEntity, String.class);
+        String responseJson = restTemplate.postForObject(apiUrl, requestEntity, String.class);
+        return parseResponse(responseJson);
+    }
 
+    // Package-private so the per-request parsing cost can be benchmarked on its own
+    ModerationVerdict parseResponse(String responseJson) {
         try {
             Map<String, Object> responseMap = objectMapper.readValue(responseJson, Map.class);
-            validateResponse(responseMap);
-        } catch (IOException e) {
+            return validateResponse(responseMap);
+        } catch (IOException | IllegalArgumentException e) {
             log.error("Could not parse Sightengine response", e);
-            throw new RuntimeException("Could not parse Sightengine response.", e);
+            throw new ModerationUnavailableException("Could not parse Sightengine response.", e);
         }
     }
 
-    private void validateResponse(Map<String, Object> responseMap) {
+    ModerationVerdict validateResponse(Map<String, Object> responseMap) {
         if (!"success".equals(responseMap.get("status"))) {
             log.warn("Sightengine API call was not successful. Response: {}", responseMap);
-            // We can choose to fail open (allow upload) or fail closed (block upload)
-            // For safety, we'll fail closed if the check doesn't succeed.
-            throw new RuntimeException("Content moderation check failed.");
+            // Counts as a provider failure; sightengine.failure-policy decides whether the upload goes through
+            throw new ModerationUnavailableException("Content moderation check failed.");
         }
 
         // Check various moderation categories
@@ -87,8 +179,9 @@ public class SightengineServiceImpl implements ContentModerationService {
             isContentInappropriate(responseMap, "gore") ||
             isContentInappropriate(responseMap, "offensive") ||
             isContentInappropriate(responseMap, "nudity")) {
-            throw new RuntimeException("Image contains inappropriate content and cannot be uploaded.");
+            return ModerationVerdict.reject("Image contains inappropriate content and cannot be uploaded.");
         }
+        return ModerationVerdict.approve();
     }
 
     private boolean isContentInappropriate(Map<String, Object> responseMap, String category) {
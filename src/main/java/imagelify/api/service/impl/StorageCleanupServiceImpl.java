@@ -0,0 +1,210 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.entity.StorageDeletion;
+import imagelify.api.repository.ImageRenditionRepository;
+import imagelify.api.repository.ImageRepository;
+import imagelify.api.repository.StorageDeletionRepository;
+import imagelify.api.service.StorageCleanupService;
+import imagelify.api.service.StorageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Borrado diferido de objetos del almacenamiento. Borrar una imagen solo encola sus claves en
+ * {@code storage_deletions}; un reaper las elimina del bucket por lotes con {@code DeleteObjects},
+ * y un barrido periódico encola los objetos que ninguna imagen llegó a referenciar (subidas fallidas).
+ */
+@Service
+@Slf4j
+public class StorageCleanupServiceImpl implements StorageCleanupService {
+
+    // Keys this application writes and always records: content-addressed originals and renditions, and direct
+    // uploads. Anything else in the bucket, including objects stored before content addressing, is left alone
+    private static final Pattern MANAGED_KEY = Pattern.compile("^([0-9a-f]{64}(\\..*)?|uploads/.+)$");
+
+    private final StorageService storageService;
+    private final StorageDeletionRepository storageDeletionRepository;
+    private final ImageRepository imageRepository;
+    private final ImageRenditionRepository imageRenditionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${storage.cleanup.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${storage.cleanup.grace-period:10m}")
+    private Duration gracePeriod;
+
+    @Value("${storage.cleanup.orphan-sweep.min-age:24h}")
+    private Duration orphanMinAge;
+
+    public StorageCleanupServiceImpl(StorageService storageService,
+                                     StorageDeletionRepository storageDeletionRepository,
+                                     ImageRepository imageRepository,
+                                     ImageRenditionRepository imageRenditionRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry) {
+        this.storageService = storageService;
+        this.storageDeletionRepository = storageDeletionRepository;
+        this.imageRepository = imageRepository;
+        this.imageRenditionRepository = imageRenditionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Encola objetos para borrarlos. Se llama dentro de la transacción que borra sus imágenes,
+     * así que las claves solo se encolan si el borrado se confirma.
+     */
+    @Override
+    @Transactional
+    public void scheduleDeletion(Collection<String> keys) {
+        LocalDateTime now = LocalDateTime.now();
+        storageDeletionRepository.saveAll(keys.stream()
+                .map(key -> StorageDeletion.builder().storageKey(key).requestedAt(now).build())
+                .toList());
+    }
+
+    /**
+     * Desencola los objetos de un contenido que se va a subir de nuevo (el original y sus miniaturas comparten
+     * el hash como prefijo). Si el reaper los está borrando en ese momento, espera a que termine.
+     */
+    @Override
+    @Transactional
+    public void cancelDeletions(String contentHash) {
+        storageDeletionRepository.deleteByStorageKeyPrefix(contentHash);
+    }
+
+    @Scheduled(fixedDelayString = "${storage.cleanup.interval:30s}", initialDelayString = "${storage.cleanup.interval:30s}")
+    public void reap() {
+        try {
+            deleteScheduled();
+        } catch (RuntimeException e) {
+            log.error("Storage cleanup failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Borra del bucket los objetos encolados hace más de {@code storage.cleanup.grace-period}, en lotes de
+     * {@code storage.cleanup.batch-size} claves. Los que vuelven a estar referenciados se desencolan sin borrarlos;
+     * los que fallan se reintentan en la siguiente pasada.
+     * @return El número de entradas desencoladas.
+     */
+    @Override
+    public int deleteScheduled() {
+        int dequeued = 0;
+        int batch;
+        do {
+            // A batch with failures ends the pass, so an unavailable store is not retried in a loop
+            batch = transactionTemplate.execute(status -> deleteBatch());
+            dequeued += batch;
+        } while (batch == batchSize);
+        return dequeued;
+    }
+
+    private int deleteBatch() {
+        // The grace period covers uploads that picked a deleted image as their duplicate just before it went away
+        List<StorageDeletion> due = storageDeletionRepository.findDue(LocalDateTime.now().minus(gracePeriod),
+                Limit.of(batchSize));
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> keys = new LinkedHashSet<>();
+        due.forEach(deletion -> keys.add(deletion.getStorageKey()));
+        // Keys are content-addressed: an image uploaded since may reference the object again
+        Set<String> referenced = referenced(keys);
+        keys.removeAll(referenced);
+
+        // The rows stay locked while the objects are deleted, so a new upload of the same content waits for it
+        Set<String> failed = keys.isEmpty() ? Set.of() : storageService.deleteFiles(keys);
+        List<StorageDeletion> done = due.stream()
+                .filter(deletion -> !failed.contains(deletion.getStorageKey()))
+                .toList();
+        storageDeletionRepository.deleteAllInBatch(done);
+
+        count("deleted", keys.size() - failed.size());
+        count("referenced", referenced.size());
+        count("failed", failed.size());
+        log.info("Deleted {} stored objects, kept {} still referenced, {} failed",
+                keys.size() - failed.size(), referenced.size(), failed.size());
+        return done.size();
+    }
+
+    @Scheduled(cron = "${storage.cleanup.orphan-sweep.cron:0 30 3 * * *}")
+    public void sweep() {
+        try {
+            scheduleOrphans();
+        } catch (RuntimeException e) {
+            log.error("Orphan sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recorre el bucket y encola los objetos que ninguna imagen ni miniatura referencia, como los que deja una subida
+     * que falló después de almacenar el archivo. Solo considera objetos de más de
+     * {@code storage.cleanup.orphan-sweep.min-age}, para no tocar subidas en curso ni subidas directas sin confirmar.
+     * @return El número de objetos encolados.
+     */
+    @Override
+    public int scheduleOrphans() {
+        int orphans = 0;
+        try (Stream<String> keys = storageService.listKeys(Instant.now().minus(orphanMinAge))) {
+            Iterator<String> managed = keys.filter(key -> MANAGED_KEY.matcher(key).matches()).iterator();
+            List<String> page = new ArrayList<>(batchSize);
+            while (managed.hasNext()) {
+                page.add(managed.next());
+                if (page.size() == batchSize || !managed.hasNext()) {
+                    orphans += scheduleUnreferenced(page);
+                    page.clear();
+                }
+            }
+        }
+        count("orphaned", orphans);
+        log.info("Orphan sweep scheduled {} unreferenced stored objects for deletion", orphans);
+        return orphans;
+    }
+
+    private int scheduleUnreferenced(List<String> page) {
+        Set<String> orphans = new LinkedHashSet<>(page);
+        orphans.removeAll(referenced(orphans));
+        if (!orphans.isEmpty()) {
+            orphans.removeAll(storageDeletionRepository.findStorageKeysIn(orphans));
+        }
+        if (!orphans.isEmpty()) {
+            scheduleDeletion(orphans);
+        }
+        return orphans.size();
+    }
+
+    private Set<String> referenced(Collection<String> keys) {
+        Set<String> referenced = new LinkedHashSet<>(imageRepository.findStorageKeysIn(keys));
+        referenced.addAll(imageRenditionRepository.findStorageKeysIn(keys));
+        return referenced;
+    }
+
+    private void count(String result, int objects) {
+        if (objects > 0) {
+            meterRegistry.counter("imagelify.storage.cleanup", "result", result).increment(objects);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.entity.Image;
+import imagelify.api.entity.UploadJob;
+import imagelify.api.entity.UploadJobStatus;
+import imagelify.api.entity.User;
+import imagelify.api.exception.UploadQueueFullException;
+import imagelify.api.repository.UploadJobRepository;
+import imagelify.api.service.ImageService;
+import imagelify.api.service.UploadJobService;
+import imagelify.api.upload.StagedUpload;
+import imagelify.api.upload.UploadStager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+@Slf4j
+public class UploadJobServiceImpl implements UploadJobService {
+
+    private final UploadJobRepository uploadJobRepository;
+    private final ImageService imageService;
+    private final TaskExecutor uploadJobExecutor;
+    private final UploadStager uploadStager;
+
+    @Value("${upload.async.abandon-after:30m}")
+    private Duration abandonAfter;
+
+    @Value("${upload.async.retention:24h}")
+    private Duration retention;
+
+    public UploadJobServiceImpl(UploadJobRepository uploadJobRepository,
+                                ImageService imageService,
+                                @Qualifier("uploadJobExecutor") TaskExecutor uploadJobExecutor,
+                                UploadStager uploadStager) {
+        this.uploadJobRepository = uploadJobRepository;
+        this.imageService = imageService;
+        this.uploadJobExecutor = uploadJobExecutor;
+        this.uploadStager = uploadStager;
+    }
+
+    /**
+     * Registra el trabajo y lo encola. La subida preparada pasa a ser responsabilidad del worker,
+     * que la borra al terminar.
+     */
+    @Override
+    public UploadJob submit(StagedUpload upload, User user) {
+        UploadJob job;
+        try {
+            job = uploadJobRepository.save(UploadJob.builder()
+                    .id(UUID.randomUUID().toString())
+                    .userId(user.getId())
+                    .filename(upload.getOriginalFilename())
+                    .status(UploadJobStatus.PENDING)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        } catch (RuntimeException e) {
+            // No worker will ever see the upload
+            upload.close();
+            throw e;
+        }
+
+        try {
+            uploadJobExecutor.execute(() -> process(job.getId(), upload, user));
+        } catch (TaskRejectedException e) {
+            upload.close();
+            uploadJobRepository.delete(job);
+            throw new UploadQueueFullException("Upload queue is full. Please retry later.");
+        }
+        return job;
+    }
+
+    @Override
+    public Optional<UploadJob> getJob(String jobId, Long userId) {
+        return uploadJobRepository.findByIdAndUserId(jobId, userId);
+    }
+
+    // Jobs queued before a restart are lost with the executor's queue; the first pass runs as soon as the app is up
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${upload.async.cleanup-interval:5m}", initialDelayString = "${upload.async.cleanup-interval:5m}")
+    public void cleanUp() {
+        try {
+            failAbandoned();
+            deleteExpired();
+            uploadStager.deleteStale(abandonAfter);
+        } catch (RuntimeException e) {
+            log.error("Upload job cleanup failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Marca como fallidos los trabajos sin terminar creados hace más de {@code upload.async.abandon-after}:
+     * su worker ya no existe (la aplicación se reinició) o nunca los va a terminar. Se decide por antigüedad,
+     * y no al arrancar, porque otras instancias pueden estar procesando los suyos.
+     * @return El número de trabajos marcados.
+     */
+    @Override
+    public int failAbandoned() {
+        LocalDateTime now = LocalDateTime.now();
+        int failed = uploadJobRepository.failUnfinishedCreatedBefore(
+                List.of(UploadJobStatus.PENDING, UploadJobStatus.PROCESSING), now.minus(abandonAfter),
+                UploadJobStatus.FAILED, "Upload was interrupted. Please upload the file again.", now);
+        if (failed > 0) {
+            log.warn("Marked {} abandoned upload jobs as failed", failed);
+        }
+        return failed;
+    }
+
+    /**
+     * Borra los trabajos terminados hace más de {@code upload.async.retention}.
+     * @return El número de trabajos borrados.
+     */
+    @Override
+    public int deleteExpired() {
+        return uploadJobRepository.deleteCompletedBefore(LocalDateTime.now().minus(retention));
+    }
+
+    private void process(String jobId, StagedUpload upload, User user) {
+        // Work on a fresh copy: the submitted instance is still being serialized by the request thread
+        UploadJob job = uploadJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            log.error("Upload job {} disappeared before processing", jobId);
+            upload.close();
+            return;
+        }
+        if (job.getStatus() != UploadJobStatus.PENDING) {
+            // Waited in the queue past upload.async.abandon-after and was already failed
+            log.warn("Upload job {} is {} before processing, skipping it", jobId, job.getStatus());
+            upload.close();
+            return;
+        }
+        try (upload) {
+            job.setStatus(UploadJobStatus.PROCESSING);
+            uploadJobRepository.save(job);
+
+            Image image = imageService.uploadImage(upload, user);
+
+            job.setImageId(image.getId());
+            job.setStatus(UploadJobStatus.COMPLETED);
+        } catch (RuntimeException e) {
+            log.warn("Upload job {} failed: {}", job.getId(), e.getMessage());
+            job.setErrorMessage(StringUtils.truncate(e.getMessage(), 1024));
+            job.setStatus(UploadJobStatus.FAILED);
+        }
+        job.setCompletedAt(LocalDateTime.now());
+        uploadJobRepository.save(job);
+    }
+}
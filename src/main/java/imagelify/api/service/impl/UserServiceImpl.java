@@ -1,6 +1,7 @@
 package imagelify.api.service.impl;
 
 import imagelify.api.repository.UserRepository;
+import imagelify.api.security.UserDetailsCache;
 import imagelify.api.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -12,15 +13,31 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
 
     @Override
     public UserDetailsService userDetailsService() {
         return new UserDetailsService() {
             @Override
             public UserDetails loadUserByUsername(String username) {
-                return userRepository.findByUsername(username)
-                        .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+                UserDetails cached = userDetailsCache.getUserFromCache(username);
+                if (cached != null) {
+                    return cached;
+                }
+                UserDetails user = loadFromDatabase(username);
+                userDetailsCache.putUserInCache(user);
+                return user;
             }
         };
     }
+
+    @Override
+    public UserDetailsService credentialsUserDetailsService() {
+        return this::loadFromDatabase;
+    }
+
+    private UserDetails loadFromDatabase(String username) {
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    }
 }
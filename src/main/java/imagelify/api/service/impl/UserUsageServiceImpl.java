@@ -0,0 +1,137 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.entity.User;
+import imagelify.api.entity.UserUsage;
+import imagelify.api.exception.ImageLimitExceededException;
+import imagelify.api.repository.ImageRepository;
+import imagelify.api.repository.UserUsageRepository;
+import imagelify.api.service.UserUsageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Cuota de imágenes sobre los contadores de {@code user_usage}: reservar es una actualización condicional
+ * de una fila por clave primaria, así que cuesta lo mismo con diez imágenes que con un millón,
+ * y dos subidas simultáneas no pueden superar el límite.
+ */
+@Service
+@Slf4j
+public class UserUsageServiceImpl implements UserUsageService {
+
+    private final UserUsageRepository userUsageRepository;
+    private final ImageRepository imageRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransaction;
+
+    public UserUsageServiceImpl(UserUsageRepository userUsageRepository,
+                                ImageRepository imageRepository,
+                                PlatformTransactionManager transactionManager) {
+        this.userUsageRepository = userUsageRepository;
+        this.imageRepository = imageRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Crea los contadores a cero de un usuario recién registrado.
+     */
+    @Override
+    @Transactional
+    public void initialize(User user) {
+        userUsageRepository.initialize(user.getId(), 0, 0);
+    }
+
+    /**
+     * Reserva una imagen de la cuota del usuario antes de almacenarla.
+     * @param user Usuario autenticado, con su plan cargado.
+     * @param bytes Tamaño de la imagen.
+     * @throws ImageLimitExceededException si el plan no admite más imágenes.
+     */
+    @Override
+    public void reserve(User user, long bytes) {
+        reserve(user, 1, bytes);
+    }
+
+    /**
+     * Reserva varias imágenes a la vez (una subida por lotes): o caben todas en el plan o no se reserva ninguna.
+     * Si el usuario aún no tiene contadores, se crean en su propia transacción antes de reintentar.
+     * @param user Usuario autenticado, con su plan cargado.
+     * @param images Número de imágenes.
+     * @param bytes Tamaño total de las imágenes.
+     * @throws ImageLimitExceededException si el plan no admite tantas imágenes.
+     */
+    @Override
+    public void reserve(User user, int images, long bytes) {
+        Integer maxImages = maxImages(user);
+        if (tryReserve(user.getId(), images, bytes, maxImages)) {
+            return;
+        }
+        // Each step commits on its own, so no lock is held on the missing row while another request seeds it.
+        // Retried even if the row exists by now: a concurrent first upload may have seeded it after the attempt above
+        seedIfMissing(user.getId());
+        if (tryReserve(user.getId(), images, bytes, maxImages)) {
+            return;
+        }
+        throw new ImageLimitExceededException("Image upload limit reached for your plan.");
+    }
+
+    private boolean tryReserve(Long userId, int images, long bytes, Integer maxImages) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(
+                status -> userUsageRepository.reserve(userId, images, bytes, maxImages) == 1));
+    }
+
+    /**
+     * Crea los contadores que falten a partir de las imágenes existentes. Si otra petición los está creando,
+     * el insert espera a que confirme y no hace nada, así que al volver la fila ya es visible.
+     */
+    private void seedIfMissing(Long userId) {
+        newTransaction.executeWithoutResult(status -> {
+            if (!userUsageRepository.existsById(userId)) {
+                // Counters are created at signup and by the migrations; seed any that are still missing
+                userUsageRepository.initialize(userId,
+                        imageRepository.countByUserId(userId), imageRepository.sumFileSizeByUserId(userId));
+            }
+        });
+    }
+
+    /**
+     * Devuelve una reserva cuya subida no llegó a guardarse.
+     */
+    @Override
+    @Transactional
+    public void release(Long userId, long bytes) {
+        release(userId, 1, bytes);
+    }
+
+    @Override
+    @Transactional
+    public void release(Long userId, int images, long bytes) {
+        if (userUsageRepository.release(userId, images, bytes) == 0) {
+            log.warn("No {} image(s) reserved for user {} to release", images, userId);
+        }
+    }
+
+    /**
+     * Comprueba sin reservar que el usuario aún tiene cuota, por ejemplo antes de firmar una subida directa.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void checkAvailable(User user) {
+        Integer maxImages = maxImages(user);
+        if (maxImages == null) {
+            return;
+        }
+        long imageCount = userUsageRepository.findById(user.getId()).map(UserUsage::getImageCount).orElse(0L);
+        if (imageCount >= maxImages) {
+            throw new ImageLimitExceededException("Image upload limit reached for your plan.");
+        }
+    }
+
+    private static Integer maxImages(User user) {
+        return user.getPlan() == null ? null : user.getPlan().getMaxImages();
+    }
+}
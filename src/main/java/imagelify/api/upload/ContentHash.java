@@ -0,0 +1,53 @@
+package imagelify.api.upload;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Huella SHA-256 del contenido de una imagen, usada para deduplicar subidas.
+ */
+public final class ContentHash {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ContentHash() {
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static String toHex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Devuelve el hash del archivo. Las subidas preparadas ya lo calcularon al leer el cuerpo;
+     * el resto se lee en streaming desde su almacenamiento temporal.
+     */
+    public static String of(MultipartFile file) {
+        if (file instanceof StagedUpload staged) {
+            return staged.getContentHash();
+        }
+        MessageDigest digest = newDigest();
+        try (InputStream in = file.getInputStream()) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read file to compute content hash.", e);
+        }
+        return toHex(digest);
+    }
+}
@@ -0,0 +1,110 @@
+package imagelify.api.upload;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+
+@Component
+@Slf4j
+public class UploadStager {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String PREFIX = "upload-";
+    private static final String SUFFIX = ".part";
+
+    @Value("${upload.staging-dir:${java.io.tmpdir}}")
+    private String stagingDir;
+
+    @Value("${spring.servlet.multipart.max-file-size}")
+    private DataSize maxFileSize;
+
+    /**
+     * Lee el cuerpo de la petición una sola vez y lo vuelca a disco con un buffer de tamaño fijo,
+     * calculando el hash del contenido en la misma pasada.
+     * @param body Flujo de entrada de la petición.
+     * @param filename Nombre original del archivo.
+     * @param contentType Tipo MIME declarado por el cliente.
+     * @return La subida preparada; el llamador debe cerrarla para borrar el archivo temporal.
+     */
+    public StagedUpload stage(InputStream body, String filename, String contentType) {
+        Path target;
+        try {
+            target = Files.createTempFile(Path.of(stagingDir), PREFIX, SUFFIX);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create staging file: " + e.getMessage(), e);
+        }
+
+        long maxBytes = maxFileSize.toBytes();
+        long size = 0;
+        MessageDigest digest = ContentHash.newDigest();
+        try (OutputStream out = Files.newOutputStream(target)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                size += read;
+                if (size > maxBytes) {
+                    throw new MaxUploadSizeExceededException(maxBytes);
+                }
+                out.write(buffer, 0, read);
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(target);
+            if (e instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            log.error("Error staging upload: {}", e.getMessage());
+            throw new RuntimeException("Error reading upload body: " + e.getMessage(), e);
+        }
+
+        return new StagedUpload(target, filename, contentType, size, ContentHash.toHex(digest));
+    }
+
+    /**
+     * Borra los archivos preparados que nadie cerró, por ejemplo los de trabajos en cola cuando se reinició la aplicación.
+     * @param olderThan Antigüedad mínima, mayor que la de cualquier subida que siga en curso.
+     * @return El número de archivos borrados.
+     */
+    public int deleteStale(Duration olderThan) {
+        Instant cutoff = Instant.now().minus(olderThan);
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Path.of(stagingDir), PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff) && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    // Closed by its upload in the meantime, or left for the next sweep
+                    log.debug("Could not delete stale staging file {}: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not list staging directory {}: {}", stagingDir, e.getMessage());
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} stale staging files", deleted);
+        }
+        return deleted;
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete staging file {}: {}", path, e.getMessage());
+        }
+    }
+}
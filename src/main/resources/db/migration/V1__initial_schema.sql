@@ -0,0 +1,42 @@
+-- Schema ddl-auto=update created before the migrations existed (plans, users and images only).
+-- Those databases are baselined at this version (spring.flyway.baseline-on-migrate) and only run
+-- the migrations after it, so everything added since belongs in a later version.
+
+create table plans (
+    id bigint not null auto_increment,
+    is_active bit not null,
+    max_images integer not null,
+    price float(53) not null,
+    name varchar(255) not null,
+    primary key (id)
+);
+
+create table users (
+    id bigint not null auto_increment,
+    is_enabled bit not null,
+    plan_id bigint,
+    registration_date datetime(6) not null,
+    email varchar(255) not null,
+    password varchar(255) not null,
+    username varchar(255) not null,
+    primary key (id)
+);
+
+create table images (
+    id bigint not null auto_increment,
+    file_size bigint not null,
+    upload_date datetime(6) not null,
+    user_id bigint not null,
+    filename varchar(255) not null,
+    mime_type varchar(255) not null,
+    s3url varchar(255) not null,
+    primary key (id)
+);
+
+-- Constraint names are the ones Hibernate generated, so they match the baselined databases
+alter table plans add constraint UKj2syv9y60858xbq169nbeg7ea unique (name);
+alter table users add constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email);
+alter table users add constraint UKr43af9ap4edm43mmtq01oddj6 unique (username);
+
+alter table users add constraint FKi4ttvfkp7tl33d90ldkkagrxu foreign key (plan_id) references plans (id);
+alter table images add constraint FK13ljqfrfwbyvnsdhihwta8cpr foreign key (user_id) references users (id);
@@ -0,0 +1,53 @@
+-- Content-addressed storage: images keep the SHA-256 of their bytes (deduplication) and their object key.
+-- Images stored before this version have neither
+alter table images add column content_hash varchar(64);
+alter table images add column storage_key varchar(255);
+
+create index idx_images_content_hash on images (content_hash);
+-- Keyset pagination of a user's images
+create index idx_images_user_upload_date on images (user_id, upload_date, id);
+
+create table image_renditions (
+    id bigint not null auto_increment,
+    max_dimension integer not null,
+    file_size bigint not null,
+    image_id bigint not null,
+    name varchar(32) not null,
+    mime_type varchar(255) not null,
+    storage_key varchar(255) not null,
+    url varchar(255) not null,
+    primary key (id)
+);
+
+alter table image_renditions add constraint uk_image_renditions_image_name unique (image_id, name);
+alter table image_renditions add constraint FKpccdjc96g1yxj06j7kbwsxlhu foreign key (image_id) references images (id);
+
+create table moderation_results (
+    content_hash varchar(64) not null,
+    approved bit not null,
+    checked_at datetime(6) not null,
+    reason varchar(255),
+    primary key (content_hash)
+);
+
+create table upload_jobs (
+    id varchar(36) not null,
+    completed_at datetime(6),
+    created_at datetime(6) not null,
+    image_id bigint,
+    user_id bigint not null,
+    error_message varchar(1024),
+    filename varchar(255) not null,
+    status enum ('COMPLETED','FAILED','PENDING','PROCESSING') not null,
+    primary key (id)
+);
+
+create index idx_upload_jobs_user on upload_jobs (user_id);
+
+-- Per-user quota counters, seeded for existing users by V4
+create table user_usage (
+    user_id bigint not null,
+    image_count bigint not null,
+    total_bytes bigint not null,
+    primary key (user_id)
+);
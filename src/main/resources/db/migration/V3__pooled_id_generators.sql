@@ -0,0 +1,15 @@
+-- Ids of images, renditions, users and plans are reserved in blocks from this table instead of
+-- auto_increment, which lets Hibernate batch inserts. The auto_increment columns are left as they are:
+-- explicit ids are always supplied, and MySQL cannot alter a column referenced by a foreign key.
+create table id_generators (
+    name varchar(255) not null,
+    next_val bigint,
+    primary key (name)
+);
+
+-- The first block handed out is (next_val - allocationSize, next_val], so each counter starts
+-- one block above the highest existing id
+insert into id_generators (name, next_val) select 'images', coalesce(max(id), 0) + 50 from images;
+insert into id_generators (name, next_val) select 'image_renditions', coalesce(max(id), 0) + 50 from image_renditions;
+insert into id_generators (name, next_val) select 'users', coalesce(max(id), 0) + 10 from users;
+insert into id_generators (name, next_val) select 'plans', coalesce(max(id), 0) + 10 from plans;
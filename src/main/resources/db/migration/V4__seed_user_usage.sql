@@ -0,0 +1,8 @@
+-- Quota counters for users that have not uploaded since the counters were introduced;
+-- new users get theirs at signup
+insert into user_usage (user_id, image_count, total_bytes)
+select u.id, count(i.id), coalesce(sum(i.file_size), 0)
+from users u
+left join images i on i.user_id = u.id
+where not exists (select 1 from user_usage uu where uu.user_id = u.id)
+group by u.id;
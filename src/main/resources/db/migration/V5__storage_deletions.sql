@@ -0,0 +1,17 @@
+-- Objects of deleted images, removed from the bucket in batches by the storage reaper. Keys are not
+-- unique: a key can be queued again (another deletion, the orphan sweep) before it is reaped
+create table storage_deletions (
+    id bigint not null,
+    requested_at datetime(6) not null,
+    storage_key varchar(255) not null,
+    primary key (id)
+);
+
+create index idx_storage_deletions_requested_at on storage_deletions (requested_at);
+create index idx_storage_deletions_storage_key on storage_deletions (storage_key);
+
+insert into id_generators (name, next_val) values ('storage_deletions', 50);
+
+-- The reaper and the orphan sweep check whether a key is still referenced before deleting it
+create index idx_images_storage_key on images (storage_key);
+create index idx_image_renditions_storage_key on image_renditions (storage_key);
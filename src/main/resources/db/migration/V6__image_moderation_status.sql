@@ -0,0 +1,5 @@
+-- Images accepted while moderation was unavailable (fail-open) are stored as UNVERIFIED: deduplication does not
+-- trust them and they are moderated again later. Existing images were all moderated when uploaded
+alter table images add column moderation_status enum ('UNVERIFIED','VERIFIED') not null default 'VERIFIED';
+
+create index idx_images_moderation_status on images (moderation_status, content_hash);
@@ -0,0 +1,9 @@
+-- One row per confirmed direct upload, keyed by the uploaded object, so that concurrent confirmations
+-- of the same key register a single image
+create table direct_uploads (
+    storage_key varchar(255) not null,
+    user_id bigint not null,
+    image_id bigint,
+    claimed_at datetime(6) not null,
+    primary key (storage_key)
+);
@@ -0,0 +1,275 @@
+package imagelify.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import imagelify.api.support.InMemoryS3Client;
+import imagelify.api.support.StubSightengineServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load test of the whole application over HTTP, fully local: H2 in MySQL mode instead of MySQL, an in-memory
+ * S3 client instead of MinIO and a stub Sightengine server, each with configurable latency.
+ * Drives mixed upload and list traffic, logs throughput and latency percentiles per operation, writes them
+ * to {@code target/load-test/end-to-end.json} and fails if they miss the configured floor and ceiling.
+ *
+ * <p>Run with {@code mvn test -Pload-test -Dtest=EndToEndLoadTest}. Tunable with system properties:
+ * {@code load.users}, {@code load.requests}, {@code load.concurrency}, {@code load.upload-ratio},
+ * {@code load.image-kb}, {@code load.moderation-latency-ms}, {@code load.storage-latency-ms},
+ * {@code load.min-throughput} (requests per second) and {@code load.max-p99-ms}.
+ */
+@Tag("load")
+// Registers the Prometheus registry as in production, which Spring Boot tests leave out by default
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "minio.url=http://127.0.0.1:9000",
+        "minio.access-key=load",
+        "minio.secret-key=load-secret",
+        "minio.bucket-name=images",
+        "minio.public-url=http://127.0.0.1:9000",
+        "sightengine.api-user=load",
+        "sightengine.api-secret=load",
+        "jwt.secret=bG9hZC10ZXN0LXNpZ25pbmcta2V5LWxvYWQtdGVzdC1zaWduaW5nLWtleS0xMjM0NTY3ODkw"
+})
+class EndToEndLoadTest {
+
+    private static final int USERS = Integer.getInteger("load.users", 20);
+    private static final int REQUESTS = Integer.getInteger("load.requests", 2_000);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 64);
+    private static final double UPLOAD_RATIO = Double.parseDouble(System.getProperty("load.upload-ratio", "0.2"));
+    private static final int IMAGE_KB = Integer.getInteger("load.image-kb", 256);
+    private static final Duration MODERATION_LATENCY = Duration.ofMillis(Long.getLong("load.moderation-latency-ms", 150));
+    private static final Duration STORAGE_LATENCY = Duration.ofMillis(Long.getLong("load.storage-latency-ms", 20));
+    // Loose enough for a shared CI runner; tighten them with the system properties when comparing changes
+    private static final double MIN_THROUGHPUT = Double.parseDouble(System.getProperty("load.min-throughput", "20"));
+    private static final long MAX_P99_MS = Long.getLong("load.max-p99-ms", 10_000);
+
+    private static final Logger log = LoggerFactory.getLogger(EndToEndLoadTest.class);
+
+    private static final StubSightengineServer SIGHTENGINE = startSightengine();
+
+    @TestConfiguration
+    static class LocalStorage {
+        @Bean
+        @Primary
+        S3Client inMemoryS3Client() {
+            InMemoryS3Client client = new InMemoryS3Client();
+            client.setLatency(STORAGE_LATENCY);
+            return client;
+        }
+    }
+
+    @DynamicPropertySource
+    static void sightengine(DynamicPropertyRegistry registry) {
+        registry.add("sightengine.api-url", SIGHTENGINE::url);
+    }
+
+    @AfterAll
+    static void stopSightengine() {
+        SIGHTENGINE.close();
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void mixedUploadAndListTraffic() throws Exception {
+        List<String> tokens = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            tokens.add(register("load" + i));
+        }
+
+        Map<String, ConcurrentLinkedQueue<Long>> latencies = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY, Thread.ofVirtual().factory())) {
+            for (int i = 0; i < REQUESTS; i++) {
+                clients.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    String token = tokens.get(random.nextInt(tokens.size()));
+                    boolean upload = random.nextDouble() < UPLOAD_RATIO;
+                    String operation = upload ? "upload" : "list";
+
+                    long sent = System.nanoTime();
+                    int status = upload ? upload(token, random) : list(token);
+                    long elapsed = System.nanoTime() - sent;
+
+                    if (status / 100 == 2) {
+                        latencies.computeIfAbsent(operation, k -> new ConcurrentLinkedQueue<>()).add(elapsed);
+                    } else {
+                        failures.computeIfAbsent(operation + " " + status, k -> new AtomicInteger()).incrementAndGet();
+                    }
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        LoadReport report = report(latencies, failures, seconds);
+        assertThat(report.failures()).isEmpty();
+        assertThat(report.throughput()).as("requests per second").isGreaterThanOrEqualTo(MIN_THROUGHPUT);
+        assertThat(report.operations()).isNotEmpty().allSatisfy((operation, stats) ->
+                assertThat(stats.p99Ms()).as("%s p99 latency in ms", operation).isLessThanOrEqualTo(MAX_P99_MS));
+    }
+
+    @Test
+    void actuatorIsServedOnlyOnTheManagementPort() {
+        assertThat(managementPort).isNotEqualTo(port);
+        assertThat(send(HttpRequest.newBuilder(
+                URI.create("http://127.0.0.1:" + managementPort + "/actuator/prometheus")).GET().build()))
+                .isEqualTo(200);
+        assertThat(send(HttpRequest.newBuilder(uri("/actuator/prometheus")).GET().build())).isNotEqualTo(200);
+    }
+
+    private String register(String username) throws IOException, InterruptedException {
+        String body = objectMapper.writeValueAsString(Map.of(
+                "username", username, "email", username + "@example.com", "password", "load-password"));
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(uri("/api/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+        return objectMapper.readTree(response.body()).get("token").asText();
+    }
+
+    private int upload(String token, ThreadLocalRandom random) {
+        // Random bytes keep every upload unique, so deduplication never short-circuits the pipeline
+        byte[] image = new byte[IMAGE_KB * 1024];
+        random.nextBytes(image);
+        String boundary = "load-" + random.nextLong(Long.MAX_VALUE);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(image.length + 256);
+        body.writeBytes(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"photo.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(image);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        return send(HttpRequest.newBuilder(uri("/api/images/upload"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build());
+    }
+
+    private int list(String token) {
+        return send(HttpRequest.newBuilder(uri("/api/images?limit=50"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build());
+    }
+
+    private int send(HttpRequest request) {
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + port + path);
+    }
+
+    private LoadReport report(Map<String, ConcurrentLinkedQueue<Long>> latencies, Map<String, AtomicInteger> failures,
+                              double seconds) throws IOException {
+        Map<String, OperationStats> operations = new TreeMap<>();
+        latencies.forEach((operation, samples) -> {
+            long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+            operations.put(operation, new OperationStats(sorted.length, sorted.length / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    sorted[sorted.length - 1] / 1_000_000));
+        });
+        Map<String, Integer> failed = new TreeMap<>();
+        failures.forEach((operation, count) -> failed.put(operation, count.get()));
+        LoadReport report = new LoadReport(REQUESTS, CONCURRENCY, seconds, REQUESTS / seconds, operations, failed);
+
+        Path file = Path.of("target", "load-test", "end-to-end.json");
+        Files.createDirectories(file.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+        log.info("{} requests, concurrency {}: {} req/s over {} s; report in {}", REQUESTS, CONCURRENCY,
+                Math.round(report.throughput()), Math.round(seconds), file);
+        operations.forEach((operation, stats) -> log.info("{}: n={}, {} ops/s, p50 {} ms, p95 {} ms, p99 {} ms, max {} ms",
+                operation, stats.count(), Math.round(stats.throughput()), stats.p50Ms(), stats.p95Ms(), stats.p99Ms(),
+                stats.maxMs()));
+        failed.forEach((operation, count) -> log.warn("failed {}: {}", operation, count));
+        return report;
+    }
+
+    record LoadReport(int requests, int concurrency, double seconds, double throughput,
+                      Map<String, OperationStats> operations, Map<String, Integer> failures) {
+    }
+
+    record OperationStats(int count, double throughput, long p50Ms, long p95Ms, long p99Ms, long maxMs) {
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * quantile))] / 1_000_000;
+    }
+
+    private static StubSightengineServer startSightengine() {
+        try {
+            StubSightengineServer server = new StubSightengineServer();
+            server.setLatency(MODERATION_LATENCY);
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
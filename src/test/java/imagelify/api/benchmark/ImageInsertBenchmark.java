@@ -0,0 +1,135 @@
+package imagelify.api.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import imagelify.api.entity.Image;
+import imagelify.api.entity.Plan;
+import imagelify.api.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Inserción masiva de imágenes (lo que hace una subida por lotes) según el tamaño de lote JDBC, sobre el
+ * esquema de las migraciones en H2 en memoria. {@code batchSize = 1} equivale a los ids IDENTITY, con los que
+ * Hibernate envía una sentencia por fila; con ids reservados por bloques las inserciones viajan agrupadas.
+ * Contra MySQL la diferencia crece con la latencia de red y con {@code rewriteBatchedStatements=true}.
+ * El resultado está en imágenes por segundo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageInsertBenchmark {
+
+    private static final int IMAGES_PER_TRANSACTION = 500;
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private HikariDataSource dataSource;
+    private EntityManagerFactory entityManagerFactory;
+    private Long userId;
+
+    @Setup
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:image-insert-" + batchSize + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan("imagelify.api.entity");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of(
+                "hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+                "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName(),
+                "hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName(),
+                "hibernate.jdbc.batch_size", batchSize,
+                "hibernate.order_inserts", true,
+                // Entity listeners get their constructor dependencies from a bean factory, as in the application
+                "hibernate.resource.beans.container", new SpringBeanContainer(new DefaultListableBeanFactory())));
+        factory.afterPropertiesSet();
+        entityManagerFactory = factory.getObject();
+
+        inTransaction(entityManager -> {
+            Plan plan = Plan.builder().name("PRO").maxImages(Integer.MAX_VALUE).price(9.99).isActive(true).build();
+            entityManager.persist(plan);
+            User user = User.builder().username("ana").password("secret").email("ana@example.com")
+                    .registrationDate(LocalDateTime.now()).isEnabled(true).plan(plan).build();
+            entityManager.persist(user);
+            userId = user.getId();
+        });
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteImages() {
+        inTransaction(entityManager -> entityManager.createQuery("delete from Image").executeUpdate());
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManagerFactory.close();
+        dataSource.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IMAGES_PER_TRANSACTION)
+    public void insertImages() {
+        inTransaction(entityManager -> {
+            User owner = entityManager.getReference(User.class, userId);
+            LocalDateTime now = LocalDateTime.now();
+            for (int i = 0; i < IMAGES_PER_TRANSACTION; i++) {
+                String key = "%064x.jpg".formatted(i);
+                entityManager.persist(Image.builder()
+                        .filename("photo-" + i + ".jpg")
+                        .s3Url("http://storage/images/" + key)
+                        .storageKey(key)
+                        .contentHash(key.substring(0, 64))
+                        .fileSize(256 * 1024L)
+                        .mimeType("image/jpeg")
+                        .uploadDate(now)
+                        .user(owner)
+                        .build());
+            }
+        });
+    }
+
+    private void inTransaction(Consumer<EntityManager> work) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            work.accept(entityManager);
+            entityManager.getTransaction().commit();
+        } finally {
+            entityManager.close();
+        }
+    }
+}
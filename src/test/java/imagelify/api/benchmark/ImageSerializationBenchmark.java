@@ -0,0 +1,79 @@
+package imagelify.api.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import imagelify.api.dto.ImageSummary;
+import imagelify.api.entity.Image;
+import imagelify.api.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de serializar las respuestas de imágenes con la configuración de Jackson de la aplicación:
+ * la entidad devuelta por una subida y una página del listado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageSerializationBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private ObjectMapper objectMapper;
+    private Image image;
+    private List<ImageSummary> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        User user = User.builder().id(1L).username("ana").build();
+        image = image(1, user);
+        page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Image listed = image(i, user);
+            page.add(new ImageSummary(listed.getId(), listed.getFilename(), listed.getS3Url(),
+                    listed.getFileSize(), listed.getMimeType(), listed.getUploadDate(), listed.getStorageKey()));
+        }
+    }
+
+    @Benchmark
+    public byte[] uploadResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(image);
+    }
+
+    @Benchmark
+    public byte[] listingPage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    private static Image image(long id, User user) {
+        String key = "3f0c9a4e-7d2b-4f61-9a8e-" + String.format("%012d", id) + "-photo-" + id + ".jpg";
+        return Image.builder()
+                .id(id)
+                .filename("photo-" + id + ".jpg")
+                .s3Url("http://localhost:9000/images/" + key)
+                .storageKey(key)
+                .contentHash("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+                .fileSize(2_345_678L)
+                .mimeType("image/jpeg")
+                .uploadDate(LocalDateTime.of(2024, 5, 1, 10, 0).plusMinutes(id))
+                .user(user)
+                .build();
+    }
+}
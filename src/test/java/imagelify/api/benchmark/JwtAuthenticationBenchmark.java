@@ -0,0 +1,125 @@
+package imagelify.api.benchmark;
+
+import imagelify.api.entity.User;
+import imagelify.api.security.jwt.JwtAuthenticationFilter;
+import imagelify.api.service.UserService;
+import imagelify.api.service.impl.JwtServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.security.Key;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste por petición de autenticar un token JWT: la verificación anterior (tres parseos con la clave
+ * reconstruida en cada uno) frente a un único parseo con clave y parser precalculados, y frente a la caché
+ * de tokens verificados. {@code filter*} miden el filtro completo con el usuario ya en caché.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[64]);
+
+    private final User user = User.builder().id(1L).username("ana").isEnabled(true).build();
+    private final UserService userService = new UserService() {
+        @Override
+        public UserDetailsService userDetailsService() {
+            return username -> user;
+        }
+
+        @Override
+        public UserDetailsService credentialsUserDetailsService() {
+            return username -> user;
+        }
+    };
+
+    private JwtServiceImpl singleParse;
+    private JwtServiceImpl cached;
+    private JwtAuthenticationFilter singleParseFilter;
+    private JwtAuthenticationFilter cachedFilter;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        singleParse = new JwtServiceImpl(SECRET, 0, Duration.ZERO);
+        cached = new JwtServiceImpl(SECRET, 10_000, Duration.ofMinutes(5));
+        singleParseFilter = new JwtAuthenticationFilter(singleParse, userService, ObservationRegistry.NOOP);
+        cachedFilter = new JwtAuthenticationFilter(cached, userService, ObservationRegistry.NOOP);
+        token = singleParse.generateToken(user);
+    }
+
+    @Benchmark
+    public String issueToken() {
+        return singleParse.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean legacyThreeParses() {
+        // extractUserName, then isTokenValid -> extractUserName + extractExpiration, each with a fresh key and parser
+        String userName = legacyClaims(token).getSubject();
+        return legacyClaims(token).getSubject().equals(userName)
+                && !legacyClaims(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public String singleParse() {
+        return singleParse.extractUserName(token);
+    }
+
+    @Benchmark
+    public String cachedToken() {
+        return cached.extractUserName(token);
+    }
+
+    @Benchmark
+    public Object filterSingleParse() throws Exception {
+        return filter(singleParseFilter);
+    }
+
+    @Benchmark
+    public Object filterCachedToken() throws Exception {
+        return filter(cachedFilter);
+    }
+
+    private Object filter(JwtAuthenticationFilter filter) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/images");
+        request.addHeader("Authorization", "Bearer " + token);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static Claims legacyClaims(String token) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+}
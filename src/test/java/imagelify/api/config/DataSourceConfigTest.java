@@ -0,0 +1,65 @@
+package imagelify.api.config;
+
+import imagelify.api.repository.ReadReplica;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataSourceConfigTest {
+
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = new DataSourceConfig().dataSource(database("primary"), database("replica"));
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void markedReadOnlyQueriesGoToTheReplica() {
+        String server = ReadReplica.query(() -> serverIn(readOnly));
+
+        assertThat(server).isEqualTo("replica");
+    }
+
+    @Test
+    void everythingElseStaysOnThePrimary() {
+        String unmarked = serverIn(readOnly);
+        String readWriteTransaction = ReadReplica.query(() -> serverIn(readWrite));
+        String noTransaction = ReadReplica.query(this::server);
+
+        assertThat(unmarked).isEqualTo("primary");
+        assertThat(readWriteTransaction).isEqualTo("primary");
+        assertThat(noTransaction).isEqualTo("primary");
+    }
+
+    private String serverIn(TransactionTemplate transaction) {
+        return transaction.execute(status -> server());
+    }
+
+    private String server() {
+        return jdbc.queryForObject("select name from server", String.class);
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table if not exists server (name varchar(16))");
+        jdbc.update("delete from server");
+        jdbc.update("insert into server (name) values (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,27 @@
+package imagelify.api.dto;
+
+import imagelify.api.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImageCursorTest {
+
+    @Test
+    void roundTripsThroughItsToken() {
+        ImageCursor cursor = new ImageCursor(LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123_456_000), 42L);
+
+        assertThat(ImageCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void rejectsTamperedTokens() {
+        assertThatThrownBy(() -> ImageCursor.decode("not-a-cursor"))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> ImageCursor.decode("%%%"))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+}
@@ -0,0 +1,100 @@
+package imagelify.api.imaging;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageDownscalerTest {
+
+    private final ImageDownscaler downscaler = new ImageDownscaler();
+
+    @Test
+    void decodesSubsampledToNoMoreThanTheTargetSize() throws IOException {
+        // 3000 / 1024 rounds up to a subsampling of 3, so the decoder reads a 1000x334 raster
+        Optional<Path> downscaled = downscaler.downscale(png(3000, 1000), 1024, "png");
+
+        assertThat(downscaled).isPresent();
+        try {
+            // Never scaled up, so the output keeps the size of the decoded raster
+            BufferedImage result = ImageIO.read(downscaled.get().toFile());
+            assertThat(result.getWidth()).isEqualTo(1000);
+            assertThat(result.getHeight()).isEqualTo(334);
+        } finally {
+            Files.deleteIfExists(downscaled.get());
+        }
+    }
+
+    @Test
+    void leavesImagesThatAlreadyFitUntouched() throws IOException {
+        assertThat(downscaler.downscale(png(800, 600), 1024, "png")).isEmpty();
+    }
+
+    @Test
+    void animatedImagesAreNotReducedToTheirFirstFrame() throws IOException {
+        assertThat(downscaler.downscaleStill(gif(2000, 100, 2), 1024, "jpg")).isEmpty();
+        assertThat(downscaler.downscaleStill(apng(2000, 100), 1024, "jpg")).isEmpty();
+    }
+
+    @Test
+    void stillImagesAreStillReduced() throws IOException {
+        Optional<Path> downscaled = downscaler.downscaleStill(gif(2000, 100, 1), 1024, "jpg");
+
+        assertThat(downscaled).isPresent();
+        Files.deleteIfExists(downscaled.get());
+    }
+
+    private static ByteArrayInputStream gif(int width, int height, int frames) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            writer.prepareWriteSequence(null);
+            for (int i = 0; i < frames; i++) {
+                writer.writeToSequence(new IIOImage(new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED),
+                        null, null), null);
+            }
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+        }
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+
+    // A PNG with an acTL chunk after IHDR: decoders without APNG support see only the default image
+    private static ByteArrayInputStream apng(int width, int height) throws IOException {
+        byte[] png = png(width, height).readAllBytes();
+        int afterHeader = 8 + 4 + 4 + 13 + 4;
+        ByteBuffer chunk = ByteBuffer.allocate(4 + 4 + 8 + 4);
+        chunk.putInt(8).put("acTL".getBytes(StandardCharsets.US_ASCII)).putInt(2).putInt(0);
+        CRC32 crc = new CRC32();
+        crc.update(chunk.array(), 4, 4 + 8);
+        chunk.putInt((int) crc.getValue());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(png, 0, afterHeader);
+        out.write(chunk.array());
+        out.write(png, afterHeader, png.length - afterHeader);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    private static ByteArrayInputStream png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+}
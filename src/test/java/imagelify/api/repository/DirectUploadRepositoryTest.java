@@ -0,0 +1,88 @@
+package imagelify.api.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against H2 with real transactions, so concurrent confirmations race on the same primary key.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DirectUploadRepositoryTest {
+
+    private static final String KEY = "uploads/1/0b7c6a52-7c5e-4d4e-9f1d-2a8a2f6c1e11-cat.png";
+
+    @Autowired
+    private DirectUploadRepository directUploadRepository;
+
+    @AfterEach
+    void tearDown() {
+        directUploadRepository.deleteAll();
+    }
+
+    @Test
+    void onlyOneConcurrentConfirmationClaimsTheKey() throws Exception {
+        int confirmations = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> claims = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(confirmations)) {
+            for (int i = 0; i < confirmations; i++) {
+                claims.add(executor.submit(() -> {
+                    start.await();
+                    // Decided by the primary key, not by the affected-rows count the driver reports
+                    try {
+                        directUploadRepository.claim(KEY, 1L, LocalDateTime.now());
+                        return true;
+                    } catch (DataIntegrityViolationException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+        }
+
+        int claimed = 0;
+        for (Future<Boolean> claim : claims) {
+            claimed += claim.get() ? 1 : 0;
+        }
+        assertThat(claimed).isEqualTo(1);
+
+        directUploadRepository.complete(KEY, 7L);
+        assertThat(directUploadRepository.findById(KEY)).get()
+                .satisfies(upload -> assertThat(upload.getImageId()).isEqualTo(7L));
+    }
+
+    @Test
+    void onlyAnAbandonedUnfinishedClaimCanBeTakenOver() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        LocalDateTime abandoned = now.minusHours(1);
+        directUploadRepository.claim(KEY, 1L, abandoned);
+
+        assertThat(directUploadRepository.takeOver(KEY, 2L, now, now.minusMinutes(10))).isZero();
+        assertThat(directUploadRepository.takeOver(KEY, 1L, now, now.minusMinutes(10))).isEqualTo(1);
+        // Now recent again, so a second retry does not take it from the first one
+        assertThat(directUploadRepository.takeOver(KEY, 1L, now.plusSeconds(1), now.minusMinutes(10))).isZero();
+        // The confirmation that was taken over cannot release the new claim
+        assertThat(directUploadRepository.release(KEY, abandoned)).isZero();
+
+        directUploadRepository.complete(KEY, 7L);
+        assertThat(directUploadRepository.takeOver(KEY, 1L, now.plusHours(1), now.plusMinutes(50))).isZero();
+        assertThat(directUploadRepository.findById(KEY).orElseThrow().getImageId()).isEqualTo(7L);
+    }
+}
@@ -0,0 +1,174 @@
+package imagelify.api.repository;
+
+import imagelify.api.dto.ModerationVerdict;
+import imagelify.api.dto.StoredObject;
+import imagelify.api.entity.Image;
+import imagelify.api.entity.Plan;
+import imagelify.api.entity.User;
+import imagelify.api.entity.UserUsage;
+import imagelify.api.security.UserDetailsCache;
+import imagelify.api.security.jwt.JwtAuthenticationFilter;
+import imagelify.api.service.ContentModerationService;
+import imagelify.api.service.ImageService;
+import imagelify.api.service.JwtService;
+import imagelify.api.service.RenditionService;
+import imagelify.api.service.StorageCleanupService;
+import imagelify.api.service.StorageService;
+import imagelify.api.service.impl.ImageServiceImpl;
+import imagelify.api.service.impl.JwtServiceImpl;
+import imagelify.api.service.impl.UserServiceImpl;
+import imagelify.api.service.impl.UserUsageServiceImpl;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Fija el número de consultas por petición en los caminos reales: autenticar con el filtro JWT y listar
+ * una página, y reservar la cuota al subir una imagen.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "jwt.secret=cXVlcnktY291bnQtdGVzdC1zaWduaW5nLWtleS1xdWVyeS1jb3VudC10ZXN0LXNpZ25pbmcta2V5"
+})
+@Import({JwtServiceImpl.class, UserServiceImpl.class, JwtAuthenticationFilter.class, UserUsageServiceImpl.class,
+        ImageServiceImpl.class, RequestQueryCountTest.Infrastructure.class})
+class RequestQueryCountTest {
+
+    @TestConfiguration
+    static class Infrastructure {
+        // Every request misses the user cache, as the first one after a login or an eviction does
+        @Bean
+        UserDetailsCache userDetailsCache() {
+            return UserDetailsCache.disabled();
+        }
+
+        @Bean
+        Executor uploadStageExecutor() {
+            return Runnable::run;
+        }
+
+        @Bean
+        ObservationRegistry observationRegistry() {
+            return ObservationRegistry.NOOP;
+        }
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @Autowired
+    private ImageService imageService;
+
+    @MockitoBean
+    private StorageService storageService;
+
+    @MockitoBean
+    private ContentModerationService contentModerationService;
+
+    @MockitoBean
+    private RenditionService renditionService;
+
+    @MockitoBean
+    private StorageCleanupService storageCleanupService;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        Plan plan = entityManager.persist(Plan.builder()
+                .name("FREE").maxImages(10).price(0.0).isActive(true).build());
+        user = entityManager.persist(User.builder()
+                .username("ana").password("secret").email("ana@example.com")
+                .registrationDate(LocalDateTime.now()).isEnabled(true).plan(plan).build());
+        for (int i = 0; i < 3; i++) {
+            entityManager.persist(Image.builder()
+                    .filename("photo-" + i + ".jpg").s3Url("http://storage/images/photo-" + i + ".jpg")
+                    .storageKey("photo-" + i + ".jpg")
+                    .fileSize(1024L).mimeType("image/jpeg").uploadDate(LocalDateTime.now().plusSeconds(i))
+                    .user(user).build());
+        }
+        entityManager.persist(UserUsage.builder().userId(user.getId()).imageCount(3L).totalBytes(3072L).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        when(storageService.readUrls(anyCollection())).thenReturn(Map.of());
+        when(storageService.uploadFile(any())).thenReturn(new StoredObject("new.jpg", "http://storage/images/new.jpg"));
+        when(contentModerationService.checkImageForInappropriateContent(any(), anyString()))
+                .thenReturn(ModerationVerdict.approve());
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticatedListingCostsTwoQueries() throws Exception {
+        User principal = authenticate();
+
+        assertThat(imageService.getImagePage(principal.getId(), null, 2)).hasSize(2);
+        // The principal with its plan in one join, then the page
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void uploadReservesItsQuotaWithOneStatement() throws Exception {
+        User principal = authenticate();
+        statistics.clear();
+
+        imageService.uploadImage(new MockMultipartFile("file", "new.jpg", "image/jpeg", new byte[]{1, 2, 3}), principal);
+        entityManager.flush();
+
+        // The duplicate lookup, one conditional update of the usage counters and the insert: the principal's plan
+        // is already loaded and the user's images are not counted
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    private User authenticate() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/images");
+        request.addHeader("Authorization", "Bearer " + jwtService.generateToken(user));
+        jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
+}
@@ -0,0 +1,94 @@
+package imagelify.api.repository;
+
+import imagelify.api.entity.Image;
+import imagelify.api.entity.ModerationStatus;
+import imagelify.api.entity.UserUsage;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.CoreMigrationType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Arranca sobre una base de datos con el esquema que creaba ddl-auto antes de las migraciones: Flyway la toma
+ * como versión 1, aplica el resto y Hibernate valida el resultado al iniciar el contexto.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SchemaUpgradeTest {
+
+    private static final String URL = "jdbc:h2:mem:schema-upgrade;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private UserUsageRepository userUsageRepository;
+
+    @DynamicPropertySource
+    static void preMigrationDatabase(DynamicPropertyRegistry registry) {
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+        // As Hibernate generated it for the entities before the migrations existed
+        jdbc.execute("""
+                create table plans (id bigint not null auto_increment, is_active bit not null,
+                    max_images integer not null, price float(53) not null, name varchar(255) not null,
+                    primary key (id))""");
+        jdbc.execute("""
+                create table users (id bigint not null auto_increment, is_enabled bit not null, plan_id bigint,
+                    registration_date datetime(6) not null, email varchar(255) not null,
+                    password varchar(255) not null, username varchar(255) not null, primary key (id))""");
+        jdbc.execute("""
+                create table images (id bigint not null auto_increment, file_size bigint not null,
+                    upload_date datetime(6) not null, user_id bigint not null, filename varchar(255) not null,
+                    mime_type varchar(255) not null, s3url varchar(255) not null, primary key (id))""");
+        jdbc.execute("alter table plans add constraint UKj2syv9y60858xbq169nbeg7ea unique (name)");
+        jdbc.execute("alter table users add constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email)");
+        jdbc.execute("alter table users add constraint UKr43af9ap4edm43mmtq01oddj6 unique (username)");
+        jdbc.execute("alter table users add constraint FKi4ttvfkp7tl33d90ldkkagrxu foreign key (plan_id) references plans (id)");
+        jdbc.execute("alter table images add constraint FK13ljqfrfwbyvnsdhihwta8cpr foreign key (user_id) references users (id)");
+
+        jdbc.update("insert into plans (is_active, max_images, price, name) values (true, 10, 0, 'FREE')");
+        jdbc.update("""
+                insert into users (is_enabled, plan_id, registration_date, email, password, username)
+                values (true, 1, now(), 'ana@example.com', 'secret', 'ana')""");
+        jdbc.update("""
+                insert into images (file_size, upload_date, user_id, filename, mime_type, s3url)
+                values (2048, now(), 1, 'cat.png', 'image/png',
+                    'http://storage/images/0b0c5c0e-2a5e-4a8e-9d59-4c3f1a0b7e11-my%20cat.png')""");
+
+        registry.add("spring.datasource.url", () -> URL);
+        registry.add("spring.datasource.username", () -> "sa");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.datasource.driver-class-name", () -> "org.h2.Driver");
+    }
+
+    @Test
+    void databaseCreatedBeforeTheMigrationsIsBaselinedAndUpgraded() {
+        MigrationInfo[] applied = flyway.info().applied();
+        assertThat(applied[0].getType()).isEqualTo(CoreMigrationType.BASELINE);
+        assertThat(applied[0].getVersion().getVersion()).isEqualTo("1");
+        assertThat(applied).hasSizeGreaterThan(1);
+        assertThat(flyway.info().pending()).isEmpty();
+
+        Image image = imageRepository.findAll().getFirst();
+        assertThat(image.getFilename()).isEqualTo("cat.png");
+        assertThat(image.getContentHash()).isNull();
+        assertThat(image.getStorageKey()).isEqualTo("0b0c5c0e-2a5e-4a8e-9d59-4c3f1a0b7e11-my cat.png");
+        assertThat(image.getModerationStatus()).isEqualTo(ModerationStatus.VERIFIED);
+
+        UserUsage usage = userUsageRepository.findById(1L).orElseThrow();
+        assertThat(usage.getImageCount()).isEqualTo(1);
+        assertThat(usage.getTotalBytes()).isEqualTo(2048);
+    }
+}
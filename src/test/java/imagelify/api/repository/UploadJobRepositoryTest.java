@@ -0,0 +1,72 @@
+package imagelify.api.repository;
+
+import imagelify.api.entity.UploadJob;
+import imagelify.api.entity.UploadJobStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UploadJobRepositoryTest {
+
+    private static final List<UploadJobStatus> UNFINISHED = List.of(UploadJobStatus.PENDING, UploadJobStatus.PROCESSING);
+
+    @Autowired
+    private UploadJobRepository uploadJobRepository;
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+    @AfterEach
+    void tearDown() {
+        uploadJobRepository.deleteAll();
+    }
+
+    @Test
+    void onlyOldUnfinishedJobsAreFailed() {
+        save("queued-before-restart", UploadJobStatus.PENDING, now.minusHours(1), null);
+        save("running-before-restart", UploadJobStatus.PROCESSING, now.minusHours(1), null);
+        save("queued", UploadJobStatus.PENDING, now.minusMinutes(1), null);
+        save("done", UploadJobStatus.COMPLETED, now.minusHours(1), now.minusMinutes(50));
+
+        int failed = uploadJobRepository.failUnfinishedCreatedBefore(UNFINISHED, now.minusMinutes(30),
+                UploadJobStatus.FAILED, "interrupted", now);
+
+        assertThat(failed).isEqualTo(2);
+        assertThat(uploadJobRepository.findById("queued-before-restart")).get().satisfies(job -> {
+            assertThat(job.getStatus()).isEqualTo(UploadJobStatus.FAILED);
+            assertThat(job.getErrorMessage()).isEqualTo("interrupted");
+            assertThat(job.getCompletedAt()).isEqualTo(now);
+        });
+        assertThat(uploadJobRepository.findById("running-before-restart").orElseThrow().getStatus())
+                .isEqualTo(UploadJobStatus.FAILED);
+        assertThat(uploadJobRepository.findById("queued").orElseThrow().getStatus()).isEqualTo(UploadJobStatus.PENDING);
+        assertThat(uploadJobRepository.findById("done").orElseThrow().getStatus()).isEqualTo(UploadJobStatus.COMPLETED);
+    }
+
+    @Test
+    void onlyJobsFinishedBeforeTheCutoffAreDeleted() {
+        save("expired", UploadJobStatus.COMPLETED, now.minusDays(2), now.minusDays(2));
+        save("recent", UploadJobStatus.FAILED, now.minusDays(2), now.minusHours(1));
+        save("unfinished", UploadJobStatus.PENDING, now.minusDays(2), null);
+
+        assertThat(uploadJobRepository.deleteCompletedBefore(now.minusDays(1))).isEqualTo(1);
+
+        assertThat(uploadJobRepository.findAll()).extracting(UploadJob::getId)
+                .containsExactlyInAnyOrder("recent", "unfinished");
+    }
+
+    private void save(String id, UploadJobStatus status, LocalDateTime createdAt, LocalDateTime completedAt) {
+        uploadJobRepository.save(UploadJob.builder().id(id).userId(1L).filename("cat.png").status(status)
+                .createdAt(createdAt).completedAt(completedAt).build());
+    }
+}
@@ -0,0 +1,50 @@
+package imagelify.api.security;
+
+import imagelify.api.entity.Plan;
+import imagelify.api.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpringCacheUserDetailsCacheTest {
+
+    // Stores by value through Java serialization, as a cache outside the process would
+    private final Cache cache = storeByValue().getCache("users");
+    private final SpringCacheUserDetailsCache userDetailsCache = new SpringCacheUserDetailsCache(cache);
+
+    @Test
+    void cachesTheUserWithoutItsPassword() {
+        Plan plan = Plan.builder().id(3L).name("FREE").maxImages(10).price(0.0).isActive(true).build();
+        userDetailsCache.putUserInCache(User.builder()
+                .id(1L).username("ana").password("$2a$10$hash").email("ana@example.com")
+                .registrationDate(LocalDateTime.now()).isEnabled(true).plan(plan).build());
+
+        assertThat(cache.get("ana", Object.class)).isInstanceOf(CachedUser.class);
+        User cached = (User) userDetailsCache.getUserFromCache("ana");
+        assertThat(cached.getId()).isEqualTo(1L);
+        assertThat(cached.getUsername()).isEqualTo("ana");
+        assertThat(cached.isEnabled()).isTrue();
+        assertThat(cached.getPassword()).isNull();
+        assertThat(cached.getPlan().getName()).isEqualTo("FREE");
+        assertThat(cached.getPlan().getMaxImages()).isEqualTo(10);
+    }
+
+    @Test
+    void evictedUsersAreLoadedAgain() {
+        userDetailsCache.putUserInCache(User.builder().id(1L).username("ana").build());
+
+        userDetailsCache.removeUserFromCache("ana");
+
+        assertThat(userDetailsCache.getUserFromCache("ana")).isNull();
+    }
+
+    private static ConcurrentMapCacheManager storeByValue() {
+        ConcurrentMapCacheManager manager = new ConcurrentMapCacheManager("users");
+        manager.setStoreByValue(true);
+        return manager;
+    }
+}
@@ -0,0 +1,46 @@
+package imagelify.api.security;
+
+import imagelify.api.entity.Plan;
+import imagelify.api.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class UserCacheInvalidationListenerTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockitoBean
+    private UserDetailsCache userDetailsCache;
+
+    @Test
+    void evictsAUserWhenItChanges() {
+        User user = entityManager.persistFlushFind(User.builder()
+                .username("ana").password("secret").email("ana@example.com")
+                .registrationDate(LocalDateTime.now()).isEnabled(true).build());
+
+        user.setPassword("changed");
+        entityManager.flush();
+
+        verify(userDetailsCache).removeUserFromCache("ana");
+    }
+
+    @Test
+    void clearsTheCacheWhenAPlanChanges() {
+        Plan plan = entityManager.persistFlushFind(Plan.builder()
+                .name("FREE").maxImages(10).price(0.0).isActive(true).build());
+
+        plan.setMaxImages(20);
+        entityManager.flush();
+
+        verify(userDetailsCache).removeAll();
+    }
+}
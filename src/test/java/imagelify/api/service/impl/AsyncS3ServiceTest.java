@@ -0,0 +1,103 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.config.S3Config.ReadUrlStrategy;
+import imagelify.api.dto.StoredObject;
+import imagelify.api.upload.StagedUpload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.transfer.s3.S3TransferManager;
+import software.amazon.awssdk.transfer.s3.model.CompletedFileUpload;
+import software.amazon.awssdk.transfer.s3.model.FileUpload;
+import software.amazon.awssdk.transfer.s3.model.UploadFileRequest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AsyncS3ServiceTest {
+
+    private static final String HELLO_SHA256 = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+    @TempDir
+    Path dir;
+
+    private S3TransferManager transferManager;
+    private FileUpload fileUpload;
+    private SimpleMeterRegistry meterRegistry;
+    private AsyncS3Service storage;
+
+    @BeforeEach
+    void setUp() {
+        transferManager = mock(S3TransferManager.class);
+        fileUpload = mock(FileUpload.class);
+        when(transferManager.uploadFile(any(UploadFileRequest.class))).thenReturn(fileUpload);
+
+        meterRegistry = new SimpleMeterRegistry();
+        storage = new AsyncS3Service(mock(S3Client.class), null, null, transferManager,
+                ObservationRegistry.NOOP, meterRegistry);
+        ReflectionTestUtils.setField(storage, "bucketName", "images");
+        ReflectionTestUtils.setField(storage, "minioPublicUrl", "http://storage");
+        ReflectionTestUtils.setField(storage, "readUrlStrategy", ReadUrlStrategy.PUBLIC);
+        ReflectionTestUtils.setField(storage, "cacheControl", "public, max-age=31536000, immutable");
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.shutdown();
+    }
+
+    @Test
+    void stagedUploadsAreSentFromDiskWithoutBlockingTheCaller() throws Exception {
+        CompletableFuture<CompletedFileUpload> transfer = new CompletableFuture<>();
+        when(fileUpload.completionFuture()).thenReturn(transfer);
+
+        try (StagedUpload upload = staged("hello")) {
+            CompletableFuture<StoredObject> stored = storage.uploadFileAsync(upload);
+            assertThat(stored).isNotDone();
+
+            transfer.complete(CompletedFileUpload.builder().response(PutObjectResponse.builder().build()).build());
+
+            assertThat(stored.get().key()).isEqualTo(HELLO_SHA256 + ".png");
+            ArgumentCaptor<UploadFileRequest> request = ArgumentCaptor.forClass(UploadFileRequest.class);
+            verify(transferManager).uploadFile(request.capture());
+            assertThat(request.getValue().source()).isEqualTo(upload.getPath());
+            assertThat(request.getValue().putObjectRequest().cacheControl()).contains("immutable");
+        }
+        assertThat(meterRegistry.get("imagelify.storage.upload.bytes").tag("mode", "crt").summary().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void failedTransferSurfacesAsAStorageError() throws Exception {
+        when(fileUpload.completionFuture())
+                .thenReturn(CompletableFuture.failedFuture(SdkClientException.create("connection reset")));
+
+        try (StagedUpload upload = staged("hello")) {
+            assertThatThrownBy(() -> storage.uploadFile(upload))
+                    .isInstanceOf(RuntimeException.class)
+                    .hasMessageContaining("connection reset")
+                    .hasCauseInstanceOf(SdkClientException.class);
+        }
+    }
+
+    private StagedUpload staged(String content) throws Exception {
+        Path file = Files.writeString(dir.resolve("upload.part"), content);
+        return new StagedUpload(file, "a.png", "image/png", content.length(), HELLO_SHA256);
+    }
+}
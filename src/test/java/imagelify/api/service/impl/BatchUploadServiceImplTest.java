@@ -0,0 +1,198 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.dto.BatchUploadResult;
+import imagelify.api.dto.ModerationVerdict;
+import imagelify.api.dto.StoredObject;
+import imagelify.api.entity.Image;
+import imagelify.api.entity.ModerationStatus;
+import imagelify.api.entity.User;
+import imagelify.api.exception.BatchTooLargeException;
+import imagelify.api.exception.InappropriateContentException;
+import imagelify.api.repository.ImageRepository;
+import imagelify.api.service.ContentModerationService;
+import imagelify.api.service.ImageService;
+import imagelify.api.service.RenditionService;
+import imagelify.api.service.StorageCleanupService;
+import imagelify.api.service.StorageService;
+import imagelify.api.service.UserUsageService;
+import imagelify.api.upload.ContentHash;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchUploadServiceImplTest {
+
+    private StorageService storageService;
+    private ImageRepository imageRepository;
+    private ContentModerationService moderationService;
+    private UserUsageService userUsageService;
+    private StorageCleanupService storageCleanupService;
+    private RenditionService renditionService;
+    private User user;
+    private BatchUploadServiceImpl batchUploadService;
+
+    @BeforeEach
+    void setUp() {
+        storageService = mock(StorageService.class);
+        imageRepository = mock(ImageRepository.class);
+        moderationService = mock(ContentModerationService.class);
+        userUsageService = mock(UserUsageService.class);
+        storageCleanupService = mock(StorageCleanupService.class);
+        renditionService = mock(RenditionService.class);
+        user = User.builder().id(1L).username("ana").build();
+
+        AtomicLong ids = new AtomicLong();
+        when(imageRepository.findFirstByContentHashAndModerationStatus(anyString(), eq(ModerationStatus.VERIFIED)))
+                .thenReturn(Optional.empty());
+        when(imageRepository.findFirstByStorageKey(anyString())).thenReturn(Optional.empty());
+        when(moderationService.checkImageForInappropriateContent(any(), anyString())).thenReturn(ModerationVerdict.approve());
+        when(imageRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Image> saved = new ArrayList<>();
+            for (Image image : invocation.<Iterable<Image>>getArgument(0)) {
+                image.setId(ids.incrementAndGet());
+                saved.add(image);
+            }
+            return saved;
+        });
+        when(storageService.uploadFile(any(MultipartFile.class))).thenAnswer(invocation -> {
+            String key = invocation.<MultipartFile>getArgument(0).getOriginalFilename();
+            return new StoredObject(key, "http://storage/images/" + key);
+        });
+        when(storageService.readUrls(any())).thenAnswer(invocation -> invocation.<Collection<String>>getArgument(0)
+                .stream().collect(Collectors.toMap(Function.identity(), key -> "http://cdn/" + key)));
+
+        batchUploadService = new BatchUploadServiceImpl(mock(ImageService.class), storageService, imageRepository,
+                userUsageService, moderationService, renditionService, storageCleanupService,
+                Runnable::run);
+        ReflectionTestUtils.setField(batchUploadService, "maxFiles", 10);
+        ReflectionTestUtils.setField(batchUploadService, "insertChunkSize", 2);
+        // Chunks are then cut by size only, which keeps the number of inserts deterministic
+        ReflectionTestUtils.setField(batchUploadService, "flushInterval", Duration.ofSeconds(10));
+    }
+
+    @Test
+    void reservesTheBatchOnceAndReportsEachFile() {
+        List<MultipartFile> files = files(3);
+        doThrow(new InappropriateContentException("nudity"))
+                .when(moderationService).checkImageForInappropriateContent(eq(files.get(1)), anyString());
+
+        Map<Integer, BatchUploadResult> results = upload(files);
+
+        verify(userUsageService).reserve(user, 3, 3);
+        assertThat(results.get(0).status()).isEqualTo(201);
+        assertThat(results.get(0).url()).isEqualTo("http://cdn/photo-0.png");
+        assertThat(results.get(1).status()).isEqualTo(422);
+        assertThat(results.get(1).error()).isEqualTo("nudity");
+        assertThat(results.get(2).status()).isEqualTo(201);
+        // Only the rejected file is given back
+        verify(userUsageService).release(1L, 1, 1);
+        verify(storageService, never()).uploadFile(files.get(1));
+    }
+
+    @Test
+    void acceptedImagesAreInsertedInChunks() {
+        Map<Integer, BatchUploadResult> results = upload(files(5));
+
+        assertThat(results.values()).extracting(BatchUploadResult::status).containsOnly(201);
+        assertThat(results.values()).extracting(BatchUploadResult::imageId).doesNotHaveDuplicates();
+        ArgumentCaptor<List<Image>> chunks = ArgumentCaptor.captor();
+        verify(imageRepository, times(3)).saveAll(chunks.capture());
+        assertThat(chunks.getAllValues()).extracting(List::size).containsExactly(2, 2, 1);
+        verify(userUsageService, never()).release(anyLong(), anyInt(), anyLong());
+    }
+
+    @Test
+    void failedInsertReleasesTheQuotaAndDeletesTheStoredObjects() {
+        doThrow(new IllegalStateException("deadlock")).when(imageRepository)
+                .saveAll(argThat((List<Image> chunk) -> chunk.getFirst().getFilename().equals("photo-2.png")));
+
+        Map<Integer, BatchUploadResult> results = upload(files(3));
+
+        assertThat(results.get(2).status()).isEqualTo(500);
+        assertThat(results.get(0).status()).isEqualTo(201);
+        verify(storageCleanupService).scheduleDeletion(List.of("photo-2.png"));
+        verify(storageService, never()).deleteFile(anyString());
+        verify(userUsageService).release(1L, 1, 1);
+    }
+
+    @Test
+    void failuresAfterTheInsertKeepTheQuotaAndReportEachFileAsCreated() {
+        doThrow(new IllegalStateException("signer unavailable")).when(storageService).readUrls(any());
+        doThrow(new IllegalStateException("queue full")).when(renditionService)
+                .generateAsync(argThat(image -> image.getFilename().equals("photo-0.png")));
+
+        Map<Integer, BatchUploadResult> results = upload(files(3));
+
+        assertThat(results.values()).extracting(BatchUploadResult::status).containsOnly(201);
+        assertThat(results.get(1).url()).isEqualTo("http://storage/images/photo-1.png");
+        verify(renditionService, times(3)).generateAsync(any());
+        verify(userUsageService, never()).release(anyLong(), anyInt(), anyLong());
+    }
+
+    @Test
+    void duplicatesOfVerifiedImagesSkipModerationAndStorage() {
+        List<MultipartFile> files = files(2);
+        Image existing = Image.builder().storageKey("stored-0.png").s3Url("http://storage/images/stored-0.png")
+                .moderationStatus(ModerationStatus.VERIFIED).build();
+        when(imageRepository.findFirstByContentHashAndModerationStatus(ContentHash.of(files.get(0)), ModerationStatus.VERIFIED))
+                .thenReturn(Optional.of(existing));
+
+        Map<Integer, BatchUploadResult> results = upload(files);
+
+        assertThat(results.get(0).url()).isEqualTo("http://cdn/stored-0.png");
+        verify(moderationService, never()).checkImageForInappropriateContent(eq(files.get(0)), anyString());
+        verify(storageService, never()).uploadFile(files.get(0));
+        verify(moderationService).checkImageForInappropriateContent(eq(files.get(1)), anyString());
+    }
+
+    @Test
+    void rejectsBatchesOverTheFileLimitBeforeReservingQuota() {
+        assertThatThrownBy(() -> batchUploadService.uploadBatch(files(11), user, result -> { }))
+                .isInstanceOf(BatchTooLargeException.class);
+
+        verify(userUsageService, never()).reserve(any(), anyInt(), anyLong());
+    }
+
+    private Map<Integer, BatchUploadResult> upload(List<MultipartFile> files) {
+        List<BatchUploadResult> results = new CopyOnWriteArrayList<>();
+        batchUploadService.uploadBatch(files, user, results::add).join();
+        assertThat(results).hasSize(files.size());
+        return results.stream().collect(Collectors.toMap(BatchUploadResult::index, Function.identity()));
+    }
+
+    private static List<MultipartFile> files(int count) {
+        return IntStream.range(0, count)
+                .<MultipartFile>mapToObj(i -> new MockMultipartFile("files", "photo-" + i + ".png", "image/png", new byte[]{(byte) i}))
+                .toList();
+    }
+}
@@ -0,0 +1,98 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.dto.ModerationVerdict;
+import imagelify.api.entity.ModerationResult;
+import imagelify.api.exception.InappropriateContentException;
+import imagelify.api.repository.ModerationResultRepository;
+import imagelify.api.service.ContentModerationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingContentModerationServiceTest {
+
+    private final MockMultipartFile file = new MockMultipartFile("file", "a.png", "image/png", new byte[]{1, 2, 3});
+
+    private ContentModerationService delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private CachingContentModerationService service;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(ContentModerationService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new CachingContentModerationService(delegate, mock(ModerationResultRepository.class),
+                meterRegistry, 100, Duration.ZERO, false);
+    }
+
+    @Test
+    void repeatedDigestIsServedFromCache() {
+        when(delegate.moderate(any(), any())).thenReturn(ModerationVerdict.approve());
+
+        service.checkImageForInappropriateContent(file, "hash-1");
+        service.checkImageForInappropriateContent(file, "hash-1");
+
+        verify(delegate, times(1)).moderate(any(), any());
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void cachedRejectionStillBlocksTheUpload() {
+        when(delegate.moderate(any(), any())).thenReturn(ModerationVerdict.reject("nope"));
+
+        assertThatThrownBy(() -> service.checkImageForInappropriateContent(file, "hash-2"))
+                .isInstanceOf(InappropriateContentException.class);
+        assertThatThrownBy(() -> service.checkImageForInappropriateContent(file, "hash-2"))
+                .isInstanceOf(InappropriateContentException.class);
+
+        verify(delegate, times(1)).moderate(any(), any());
+    }
+
+    @Test
+    void providerFailuresAreNotCached() {
+        when(delegate.moderate(any(), any()))
+                .thenThrow(new RuntimeException("Content moderation check failed."))
+                .thenReturn(ModerationVerdict.approve());
+
+        assertThatThrownBy(() -> service.moderate(file, "hash-3")).isInstanceOf(RuntimeException.class);
+        assertThat(service.moderate(file, "hash-3").approved()).isTrue();
+
+        verify(delegate, times(2)).moderate(any(), any());
+    }
+
+    @Test
+    void persistedVerdictsOlderThanTheTtlAreCheckedAgain() {
+        ModerationResultRepository repository = mock(ModerationResultRepository.class);
+        service = new CachingContentModerationService(delegate, repository, meterRegistry, 100, Duration.ofHours(1), true);
+        when(repository.findById("fresh")).thenReturn(Optional.of(persisted("fresh", LocalDateTime.now().minusMinutes(30))));
+        when(repository.findById("stale")).thenReturn(Optional.of(persisted("stale", LocalDateTime.now().minusHours(2))));
+        when(delegate.moderate(any(), any())).thenReturn(ModerationVerdict.approve());
+
+        assertThat(service.moderate(file, "fresh").approved()).isFalse();
+        verify(delegate, never()).moderate(any(), any());
+
+        assertThat(service.moderate(file, "stale").approved()).isTrue();
+        verify(delegate, times(1)).moderate(any(), any());
+        verify(repository).save(any(ModerationResult.class));
+    }
+
+    private static ModerationResult persisted(String contentHash, LocalDateTime checkedAt) {
+        return ModerationResult.builder().contentHash(contentHash).approved(false).reason("nudity")
+                .checkedAt(checkedAt).build();
+    }
+}
@@ -0,0 +1,231 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.dto.DirectUploadRequest;
+import imagelify.api.dto.PresignedUpload;
+import imagelify.api.dto.StoredContent;
+import imagelify.api.dto.StoredObject;
+import imagelify.api.entity.DirectUpload;
+import imagelify.api.entity.Image;
+import imagelify.api.entity.User;
+import imagelify.api.exception.DirectUploadInProgressException;
+import imagelify.api.exception.DirectUploadNotFoundException;
+import imagelify.api.exception.InappropriateContentException;
+import imagelify.api.repository.DirectUploadRepository;
+import imagelify.api.repository.ImageRepository;
+import imagelify.api.service.ImageService;
+import imagelify.api.service.StorageService;
+import imagelify.api.upload.StagedUpload;
+import imagelify.api.upload.UploadStager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DirectUploadServiceImplTest {
+
+    private static final String KEY = "uploads/1/0b7c6a52-7c5e-4d4e-9f1d-2a8a2f6c1e11-cat.png";
+
+    @TempDir
+    Path stagingDir;
+
+    private ImageService imageService;
+    private StorageService storageService;
+    private ImageRepository imageRepository;
+    private DirectUploadRepository directUploadRepository;
+    private User user;
+    private DirectUploadServiceImpl directUploadService;
+
+    @BeforeEach
+    void setUp() {
+        imageService = mock(ImageService.class);
+        storageService = mock(StorageService.class);
+        imageRepository = mock(ImageRepository.class);
+        directUploadRepository = mock(DirectUploadRepository.class);
+        user = User.builder().id(1L).username("ana").build();
+
+        UploadStager uploadStager = new UploadStager();
+        ReflectionTestUtils.setField(uploadStager, "stagingDir", stagingDir.toString());
+        ReflectionTestUtils.setField(uploadStager, "maxFileSize", DataSize.ofBytes(16));
+
+        directUploadService = new DirectUploadServiceImpl(imageService, storageService, imageRepository,
+                directUploadRepository, uploadStager);
+        ReflectionTestUtils.setField(directUploadService, "maxFileSize", DataSize.ofBytes(16));
+
+        when(imageRepository.findFirstByStorageKey(anyString())).thenReturn(Optional.empty());
+        ReflectionTestUtils.setField(directUploadService, "claimTimeout", Duration.ofMinutes(10));
+        when(storageService.publicUrl(anyString())).thenAnswer(invocation -> "http://storage/images/" + invocation.getArgument(0));
+    }
+
+    @Test
+    void initiateSignsAKeyUnderTheUsersPrefix() {
+        when(storageService.presignUpload(anyString(), eq("image/png"), eq(3L))).thenAnswer(invocation ->
+                new PresignedUpload(invocation.getArgument(0), "http://signed", "PUT", Map.of(), Instant.now()));
+
+        PresignedUpload upload = directUploadService.initiate(request("../../etc/cat.png", 3), user);
+
+        assertThat(upload.key()).startsWith("uploads/1/").endsWith("-cat.png");
+        verify(imageService).checkPlanLimits(user, 3);
+    }
+
+    @Test
+    void longFilenamesAreShortenedSoRenditionKeysFitTheColumn() {
+        when(storageService.presignUpload(anyString(), eq("image/png"), eq(3L))).thenAnswer(invocation ->
+                new PresignedUpload(invocation.getArgument(0), "http://signed", "PUT", Map.of(), Instant.now()));
+        User longId = User.builder().id(Long.MAX_VALUE).username("ana").build();
+
+        PresignedUpload upload = directUploadService.initiate(request("a".repeat(196) + ".png", 3), longId);
+
+        assertThat(upload.key()).endsWith("a.png");
+        assertThat((upload.key() + ".thumbnail.jpg").length()).isLessThanOrEqualTo(255);
+        assertThat((upload.key() + ".preview.webp").length()).isLessThanOrEqualTo(255);
+    }
+
+    @Test
+    void initiateRejectsFilesOverTheUploadLimit() {
+        assertThatThrownBy(() -> directUploadService.initiate(request("cat.png", 17), user))
+                .isInstanceOf(MaxUploadSizeExceededException.class);
+
+        verify(storageService, never()).presignUpload(anyString(), anyString(), any(Long.class));
+    }
+
+    @Test
+    void completeRegistersTheStoredObject() {
+        when(storageService.openFile(KEY)).thenReturn(Optional.of(content(new byte[]{1, 2, 3})));
+        ArgumentCaptor<StagedUpload> staged = ArgumentCaptor.forClass(StagedUpload.class);
+        when(imageService.registerStoredUpload(staged.capture(), any(), eq(user))).thenReturn(Image.builder().id(7L).build());
+
+        directUploadService.complete(KEY, user);
+
+        assertThat(staged.getValue().getOriginalFilename()).isEqualTo("cat.png");
+        assertThat(staged.getValue().getSize()).isEqualTo(3);
+        verify(imageService).registerStoredUpload(any(), eq(new StoredObject(KEY, "http://storage/images/" + KEY)), eq(user));
+        verify(directUploadRepository).complete(KEY, 7L);
+    }
+
+    @Test
+    void concurrentConfirmationReturnsTheImageTheFirstOneRegistered() {
+        Image registered = Image.builder().id(7L).user(user).storageKey(KEY).build();
+        alreadyClaimed();
+        when(directUploadRepository.findById(KEY)).thenReturn(Optional.of(claim(7L)));
+        when(imageRepository.findByIdAndUserId(7L, 1L)).thenReturn(Optional.of(registered));
+
+        assertThat(directUploadService.complete(KEY, user)).isSameAs(registered);
+
+        verify(storageService, never()).openFile(anyString());
+        verify(imageService, never()).registerStoredUpload(any(), any(), any());
+    }
+
+    @Test
+    void confirmationWhileTheFirstIsStillRegisteringIsAConflict() {
+        alreadyClaimed();
+        when(directUploadRepository.findById(KEY)).thenReturn(Optional.of(claim(null)));
+
+        assertThatThrownBy(() -> directUploadService.complete(KEY, user))
+                .isInstanceOf(DirectUploadInProgressException.class);
+
+        verify(storageService, never()).openFile(anyString());
+    }
+
+    @Test
+    void failedRegistrationReleasesTheClaim() {
+        when(storageService.openFile(KEY)).thenReturn(Optional.of(content(new byte[]{1, 2, 3})));
+        when(imageService.registerStoredUpload(any(), any(), eq(user))).thenThrow(new InappropriateContentException("nudity"));
+
+        assertThatThrownBy(() -> directUploadService.complete(KEY, user))
+                .isInstanceOf(InappropriateContentException.class);
+
+        verify(directUploadRepository).release(eq(KEY), any());
+        verify(directUploadRepository, never()).complete(anyString(), any());
+    }
+
+    @Test
+    void completeRejectsKeysOfOtherUsers() {
+        String foreignKey = KEY.replace("uploads/1/", "uploads/2/");
+
+        assertThatThrownBy(() -> directUploadService.complete(foreignKey, user))
+                .isInstanceOf(DirectUploadNotFoundException.class);
+
+        verify(storageService, never()).openFile(anyString());
+    }
+
+    @Test
+    void completingTwiceReturnsTheRegisteredImage() {
+        Image registered = Image.builder().id(7L).user(user).storageKey(KEY).build();
+        when(imageRepository.findFirstByStorageKey(KEY)).thenReturn(Optional.of(registered));
+
+        assertThat(directUploadService.complete(KEY, user)).isSameAs(registered);
+
+        verify(storageService, never()).openFile(anyString());
+    }
+
+    @Test
+    void oversizedObjectIsDeleted() {
+        when(storageService.openFile(KEY)).thenReturn(Optional.of(content(new byte[17])));
+
+        assertThatThrownBy(() -> directUploadService.complete(KEY, user))
+                .isInstanceOf(MaxUploadSizeExceededException.class);
+
+        verify(storageService).deleteFile(KEY);
+        verify(imageService, never()).registerStoredUpload(any(), any(), any());
+    }
+
+    @Test
+    void confirmationAbandonedPastTheTimeoutIsTakenOver() {
+        alreadyClaimed();
+        when(directUploadRepository.takeOver(eq(KEY), eq(1L), any(), any())).thenReturn(1);
+        when(storageService.openFile(KEY)).thenReturn(Optional.of(content(new byte[]{1, 2, 3})));
+        when(imageService.registerStoredUpload(any(), any(), eq(user))).thenReturn(Image.builder().id(8L).build());
+
+        assertThat(directUploadService.complete(KEY, user).getId()).isEqualTo(8L);
+
+        ArgumentCaptor<LocalDateTime> claimedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(directUploadRepository).takeOver(eq(KEY), eq(1L), claimedAt.capture(), cutoff.capture());
+        assertThat(cutoff.getValue()).isEqualTo(claimedAt.getValue().minusMinutes(10));
+        verify(directUploadRepository).complete(KEY, 8L);
+    }
+
+    private void alreadyClaimed() {
+        doThrow(new DataIntegrityViolationException("duplicate key"))
+                .when(directUploadRepository).claim(eq(KEY), eq(1L), any());
+    }
+
+    private static DirectUpload claim(Long imageId) {
+        return DirectUpload.builder().storageKey(KEY).userId(1L).imageId(imageId).claimedAt(LocalDateTime.now()).build();
+    }
+
+    private static DirectUploadRequest request(String filename, long size) {
+        DirectUploadRequest request = new DirectUploadRequest();
+        request.setFilename(filename);
+        request.setContentType("image/png");
+        request.setSize(size);
+        return request;
+    }
+
+    private static StoredContent content(byte[] bytes) {
+        return new StoredContent(new ByteArrayInputStream(bytes), "image/png", bytes.length);
+    }
+}
@@ -0,0 +1,245 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.dto.ImageSummary;
+import imagelify.api.dto.ModerationVerdict;
+import imagelify.api.dto.StoredObject;
+import imagelify.api.entity.Image;
+import imagelify.api.entity.ModerationStatus;
+import imagelify.api.entity.User;
+import imagelify.api.exception.ImageLimitExceededException;
+import imagelify.api.exception.InappropriateContentException;
+import imagelify.api.repository.ImageRenditionRepository;
+import imagelify.api.repository.ImageRepository;
+import imagelify.api.service.ContentModerationService;
+import imagelify.api.service.RenditionService;
+import imagelify.api.service.StorageCleanupService;
+import imagelify.api.service.StorageService;
+import imagelify.api.service.UserUsageService;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImageServiceImplTest {
+
+    private final MockMultipartFile file = new MockMultipartFile("file", "a.png", "image/png", new byte[]{1, 2, 3});
+    private final StoredObject stored = new StoredObject("key-a.png", "http://storage/images/key-a.png");
+
+    private StorageService storageService;
+    private ImageRepository imageRepository;
+    private ImageRenditionRepository imageRenditionRepository;
+    private StorageCleanupService storageCleanupService;
+    private ContentModerationService moderationService;
+    private UserUsageService userUsageService;
+    private ExecutorService executor;
+    private User user;
+    private SimpleMeterRegistry meterRegistry;
+    private ImageServiceImpl imageService;
+
+    @BeforeEach
+    void setUp() {
+        storageService = mock(StorageService.class);
+        imageRepository = mock(ImageRepository.class);
+        imageRenditionRepository = mock(ImageRenditionRepository.class);
+        storageCleanupService = mock(StorageCleanupService.class);
+        moderationService = mock(ContentModerationService.class);
+        userUsageService = mock(UserUsageService.class);
+        executor = Executors.newFixedThreadPool(2);
+
+        user = User.builder().id(1L).username("ana").build();
+        when(imageRepository.findFirstByContentHashAndModerationStatus(anyString(), eq(ModerationStatus.VERIFIED))).thenReturn(Optional.empty());
+        when(imageRepository.save(any(Image.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(moderationService.checkImageForInappropriateContent(any(), anyString())).thenReturn(ModerationVerdict.approve());
+        when(storageService.uploadFile(any())).thenReturn(stored);
+        when(storageService.uploadFileAsync(any())).thenAnswer(invocation ->
+                CompletableFuture.supplyAsync(() -> storageService.uploadFile(invocation.getArgument(0)), executor));
+
+        meterRegistry = new SimpleMeterRegistry();
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+
+        imageService = new ImageServiceImpl(storageService, imageRepository, imageRenditionRepository, userUsageService,
+                moderationService, mock(RenditionService.class), storageCleanupService, executor, observationRegistry);
+        ReflectionTestUtils.setField(imageService, "speculative", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void speculativeUploadRunsModerationAndStorageConcurrently() {
+        doAnswer(invocation -> {
+            Thread.sleep(300);
+            return ModerationVerdict.approve();
+        }).when(moderationService).checkImageForInappropriateContent(any(), anyString());
+        when(storageService.uploadFile(any())).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return stored;
+        });
+
+        long start = System.nanoTime();
+        Image image = imageService.uploadImage(file, user);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(image.getStorageKey()).isEqualTo("key-a.png");
+        assertThat(elapsedMillis).isLessThan(550);
+        verify(storageCleanupService, never()).scheduleDeletion(any());
+    }
+
+    @Test
+    void rejectedModerationDeletesSpeculativelyStoredObject() {
+        doThrow(new InappropriateContentException("nope"))
+                .when(moderationService).checkImageForInappropriateContent(any(), anyString());
+
+        assertThatThrownBy(() -> imageService.uploadImage(file, user)).isInstanceOf(InappropriateContentException.class);
+
+        verify(storageCleanupService, timeout(1000)).scheduleDeletion(List.of("key-a.png"));
+        verify(imageRepository, never()).save(any());
+        verify(userUsageService).release(1L, 3);
+    }
+
+    @Test
+    void quotaRejectionDeletesSpeculativelyStoredObject() {
+        doThrow(new ImageLimitExceededException("full")).when(userUsageService).reserve(user, 3);
+
+        assertThatThrownBy(() -> imageService.uploadImage(file, user)).isInstanceOf(ImageLimitExceededException.class);
+
+        verify(storageCleanupService, timeout(1000)).scheduleDeletion(List.of("key-a.png"));
+    }
+
+    @Test
+    void recordsATimerPerUploadStage() {
+        imageService.uploadImage(file, user);
+
+        assertThat(meterRegistry.get("imagelify.upload").tag("path", "speculative").timer().count()).isEqualTo(1);
+        for (String stage : new String[]{"moderation", "plan-check", "storage", "save"}) {
+            assertThat(meterRegistry.get("imagelify.upload." + stage).timer().count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void uploadAcceptedWhileModerationIsUnavailableIsSavedUnverified() {
+        ReflectionTestUtils.setField(imageService, "speculative", false);
+        when(moderationService.checkImageForInappropriateContent(any(), anyString()))
+                .thenReturn(ModerationVerdict.unverified("Content moderation unavailable"));
+
+        Image image = imageService.uploadImage(file, user);
+
+        assertThat(image.getModerationStatus()).isEqualTo(ModerationStatus.UNVERIFIED);
+    }
+
+    @Test
+    void rejectedDirectUploadDeletesTheUploadedObject() {
+        StoredObject direct = new StoredObject("uploads/1/u-a.png", "http://storage/images/uploads/1/u-a.png");
+        doThrow(new InappropriateContentException("nope"))
+                .when(moderationService).checkImageForInappropriateContent(any(), anyString());
+
+        assertThatThrownBy(() -> imageService.registerStoredUpload(file, direct, user))
+                .isInstanceOf(InappropriateContentException.class);
+
+        verify(storageCleanupService).scheduleDeletion(List.of("uploads/1/u-a.png"));
+        verify(imageRepository, never()).save(any());
+    }
+
+    @Test
+    void duplicateOfAVerifiedImageSkipsModerationAndStorage() {
+        Image existing = Image.builder().storageKey("key-a.png").s3Url("http://storage/images/key-a.png")
+                .moderationStatus(ModerationStatus.VERIFIED).build();
+        when(imageRepository.findFirstByContentHashAndModerationStatus(anyString(), eq(ModerationStatus.VERIFIED)))
+                .thenReturn(Optional.of(existing));
+
+        Image image = imageService.uploadImage(file, user);
+
+        assertThat(image.getStorageKey()).isEqualTo("key-a.png");
+        assertThat(image.getModerationStatus()).isEqualTo(ModerationStatus.VERIFIED);
+        assertThat(meterRegistry.get("imagelify.upload").tag("path", "duplicate").timer().count()).isEqualTo(1);
+        verify(moderationService, never()).checkImageForInappropriateContent(any(), anyString());
+        verify(storageService, never()).uploadFile(any());
+        verify(storageService, never()).uploadFileAsync(any());
+        verify(userUsageService).reserve(user, 3);
+    }
+
+    @Test
+    void duplicateDirectUploadReusesTheExistingObject() {
+        StoredObject direct = new StoredObject("uploads/1/u-a.png", "http://storage/images/uploads/1/u-a.png");
+        Image existing = Image.builder().storageKey("key-a.png").s3Url("http://storage/images/key-a.png").build();
+        when(imageRepository.findFirstByContentHashAndModerationStatus(anyString(), eq(ModerationStatus.VERIFIED)))
+                .thenReturn(Optional.of(existing));
+
+        Image image = imageService.registerStoredUpload(file, direct, user);
+
+        assertThat(image.getStorageKey()).isEqualTo("key-a.png");
+        verify(storageCleanupService).scheduleDeletion(List.of("uploads/1/u-a.png"));
+        verify(moderationService, never()).checkImageForInappropriateContent(any(), anyString());
+    }
+
+    @Test
+    void deletedImagesQueueTheirObjectsAndReleaseTheQuota() {
+        Image first = Image.builder().id(7L).storageKey("key-a.png").fileSize(100L).build();
+        Image legacy = Image.builder().id(8L).fileSize(50L).build();
+        when(imageRepository.findForDeletion(List.of(7L, 8L, 9L), 1L)).thenReturn(List.of(first, legacy));
+        when(imageRenditionRepository.findStorageKeysByImageIds(List.of(7L, 8L)))
+                .thenReturn(List.of("key-a.png", "key-a.png.thumbnail.jpg"));
+
+        List<Long> deleted = imageService.deleteImages(List.of(7L, 8L, 9L), 1L);
+
+        assertThat(deleted).containsExactly(7L, 8L);
+        verify(imageRenditionRepository).deleteByImageIds(List.of(7L, 8L));
+        verify(imageRepository).deleteAllByIdInBatch(List.of(7L, 8L));
+        verify(storageCleanupService).scheduleDeletion(Set.of("key-a.png", "key-a.png.thumbnail.jpg"));
+        verify(userUsageService).release(1L, 2, 150);
+        verify(storageService, never()).deleteFile(anyString());
+    }
+
+    @Test
+    void imagesStoredWithoutAKeyKeepTheirSavedUrlInListings() {
+        LocalDateTime now = LocalDateTime.now();
+        ImageSummary current = new ImageSummary(2L, "a.png", "http://storage/images/key-a.png", 3L, "image/png", now,
+                "key-a.png");
+        ImageSummary legacy = new ImageSummary(1L, "old.png", "http://storage/images/0b0c-old.png", 3L, "image/png", now,
+                null);
+        when(imageRepository.findFirstPage(eq(1L), any())).thenReturn(List.of(current, legacy));
+        when(storageService.readUrls(List.of("key-a.png"))).thenReturn(Map.of("key-a.png", "https://signed/key-a.png"));
+
+        List<ImageSummary> page = imageService.getImagePage(1L, null, 10);
+
+        assertThat(page).extracting(ImageSummary::url)
+                .containsExactly("https://signed/key-a.png", "http://storage/images/0b0c-old.png");
+    }
+
+    @Test
+    void freshUploadCancelsPendingDeletionsOfItsContent() {
+        imageService.uploadImage(file, user);
+
+        verify(storageCleanupService).cancelDeletions(argThat(hash -> hash.length() == 64));
+    }
+}
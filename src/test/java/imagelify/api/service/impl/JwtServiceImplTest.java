@@ -0,0 +1,56 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.entity.User;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtServiceImplTest {
+
+    private static final byte[] KEY = new byte[64];
+    private static final String SECRET = Base64.getEncoder().encodeToString(KEY);
+
+    private final User user = User.builder().username("ana").build();
+    private final JwtServiceImpl jwtService = new JwtServiceImpl(SECRET, 100, Duration.ofMinutes(5));
+
+    @Test
+    void verifiesIssuedTokens() {
+        String token = jwtService.generateToken(user);
+
+        assertThat(jwtService.extractUserName(token)).isEqualTo("ana");
+        assertThat(jwtService.extractUserName(token)).isEqualTo("ana");
+        assertThat(jwtService.isTokenValid(token, user)).isTrue();
+    }
+
+    @Test
+    void rejectsTokensWithAForgedPayloadEvenWhenTheSignatureWasSeen() {
+        String token = jwtService.generateToken(user);
+        jwtService.extractUserName(token);
+
+        String[] parts = token.split("\\.");
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"admin\"}".getBytes());
+        String forged = parts[0] + "." + forgedPayload + "." + parts[2];
+
+        assertThatThrownBy(() -> jwtService.extractUserName(forged)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void rejectsExpiredTokens() {
+        String expired = Jwts.builder().setSubject("ana")
+                .setExpiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(Keys.hmacShaKeyFor(KEY), SignatureAlgorithm.HS256).compact();
+
+        assertThatThrownBy(() -> jwtService.extractUserName(expired)).isInstanceOf(ExpiredJwtException.class);
+    }
+}
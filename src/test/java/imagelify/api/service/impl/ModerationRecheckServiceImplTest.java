@@ -0,0 +1,88 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.dto.ModerationVerdict;
+import imagelify.api.entity.Image;
+import imagelify.api.entity.ModerationStatus;
+import imagelify.api.entity.User;
+import imagelify.api.exception.ModerationUnavailableException;
+import imagelify.api.repository.ImageRepository;
+import imagelify.api.service.ContentModerationService;
+import imagelify.api.service.ImageService;
+import imagelify.api.service.StorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ModerationRecheckServiceImplTest {
+
+    private ImageRepository imageRepository;
+    private ImageService imageService;
+    private StorageService storageService;
+    private ContentModerationService moderationService;
+    private ModerationRecheckServiceImpl recheckService;
+
+    @BeforeEach
+    void setUp() {
+        imageRepository = mock(ImageRepository.class);
+        imageService = mock(ImageService.class);
+        storageService = mock(StorageService.class);
+        moderationService = mock(ContentModerationService.class);
+        recheckService = new ModerationRecheckServiceImpl(imageRepository, imageService, storageService, moderationService);
+        ReflectionTestUtils.setField(recheckService, "batchSize", 10);
+
+        when(imageRepository.findContentHashesByModerationStatus(eq(ModerationStatus.UNVERIFIED), any()))
+                .thenReturn(List.of("hash-a", "hash-b"));
+        when(imageRepository.findByContentHashAndModerationStatus("hash-a", ModerationStatus.UNVERIFIED))
+                .thenReturn(List.of(image(1L, 10L, "hash-a"), image(2L, 20L, "hash-a")));
+        when(imageRepository.findByContentHashAndModerationStatus("hash-b", ModerationStatus.UNVERIFIED))
+                .thenReturn(List.of(image(3L, 10L, "hash-b"), image(4L, 10L, "hash-b")));
+    }
+
+    @Test
+    void approvedContentBecomesVerifiedAndRejectedContentIsDeleted() {
+        when(moderationService.moderate(any(), eq("hash-a"))).thenReturn(ModerationVerdict.approve());
+        when(moderationService.moderate(any(), eq("hash-b"))).thenReturn(ModerationVerdict.reject("nudity"));
+
+        int rechecked = recheckService.recheckUnverified();
+
+        assertThat(rechecked).isEqualTo(2);
+        // One moderation call per content, downloaded from storage
+        verify(storageService).downloadFile(eq("hash-a.png"), any());
+        verify(moderationService, times(1)).moderate(any(), eq("hash-a"));
+        verify(imageRepository).updateModerationStatus("hash-a", ModerationStatus.UNVERIFIED, ModerationStatus.VERIFIED);
+        verify(imageService).deleteImages(List.of(3L, 4L), 10L);
+        verify(imageService, never()).deleteImages(List.of(1L), 10L);
+    }
+
+    @Test
+    void stopsWhileModerationIsStillUnavailable() {
+        when(moderationService.moderate(any(), anyString()))
+                .thenReturn(ModerationVerdict.unverified("Content moderation unavailable"))
+                .thenThrow(new ModerationUnavailableException("down"));
+
+        int rechecked = recheckService.recheckUnverified();
+
+        assertThat(rechecked).isZero();
+        verify(moderationService, times(1)).moderate(any(), anyString());
+        verify(imageRepository, never()).updateModerationStatus(anyString(), any(), any());
+        verify(imageService, never()).deleteImages(any(), any());
+    }
+
+    private static Image image(Long id, Long userId, String contentHash) {
+        return Image.builder().id(id).user(User.builder().id(userId).build()).contentHash(contentHash)
+                .storageKey(contentHash + ".png").filename("photo.png").mimeType("image/png").fileSize(3L)
+                .moderationStatus(ModerationStatus.UNVERIFIED).build();
+    }
+}
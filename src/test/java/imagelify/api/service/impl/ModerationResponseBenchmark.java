@@ -0,0 +1,65 @@
+package imagelify.api.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import imagelify.api.dto.ModerationVerdict;
+import imagelify.api.support.StubSightengineServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de interpretar la respuesta de Sightengine: parseo del JSON y aplicación de los umbrales.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModerationResponseBenchmark {
+
+    // Shape of a real response for the models requested in callSightengine
+    private static final String FULL_RESPONSE = """
+            {"status":"success","request":{"id":"req_1","timestamp":1714550000.1,"operations":7},
+             "nudity":{"sexual_activity":0.001,"sexual_display":0.001,"erotica":0.002,"very_suggestive":0.003,
+              "suggestive":0.01,"mildly_suggestive":0.02,"none":0.96,"raw":0.01},
+             "weapon":0.01,"recreational_drug":0.002,
+             "offensive":{"nazi":0.001,"confederate":0.001,"supremacist":0.001,"terrorist":0.001,"middle_finger":0.002},
+             "gore":{"prob":0.01},"violence":0.02,"self-harm":0.001,
+             "media":{"id":"med_1","uri":"photo.jpg"}}""";
+
+    private SightengineServiceImpl service;
+    private Map<String, Object> parsed;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        service = new SightengineServiceImpl(null, null, null, null);
+        parsed = new ObjectMapper().readValue(FULL_RESPONSE, Map.class);
+    }
+
+    @Benchmark
+    public ModerationVerdict parseMinimalResponse() {
+        return service.parseResponse(StubSightengineServer.SAFE_RESPONSE);
+    }
+
+    @Benchmark
+    public ModerationVerdict parseFullResponse() {
+        return service.parseResponse(FULL_RESPONSE);
+    }
+
+    @Benchmark
+    public ModerationVerdict thresholdsOnly() {
+        return service.validateResponse(parsed);
+    }
+}
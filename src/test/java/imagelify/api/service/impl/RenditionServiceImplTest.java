@@ -0,0 +1,98 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.dto.StoredObject;
+import imagelify.api.entity.Image;
+import imagelify.api.entity.ImageRendition;
+import imagelify.api.imaging.ImageDownscaler;
+import imagelify.api.repository.ImageRenditionRepository;
+import imagelify.api.service.StorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RenditionServiceImplTest {
+
+    private final Image image = Image.builder()
+            .id(7L)
+            .storageKey("key-a.png")
+            .s3Url("http://storage/images/key-a.png")
+            .mimeType("image/png")
+            .fileSize(1000L)
+            .build();
+
+    private StorageService storageService;
+    private ImageRenditionRepository renditionRepository;
+    private RenditionServiceImpl renditionService;
+
+    @BeforeEach
+    void setUp() {
+        storageService = mock(StorageService.class);
+        renditionRepository = mock(ImageRenditionRepository.class);
+        when(storageService.uploadFile(anyString(), any(Path.class), anyString()))
+                .thenAnswer(invocation -> new StoredObject(invocation.getArgument(0),
+                        "http://storage/images/" + invocation.getArgument(0)));
+
+        renditionService = new RenditionServiceImpl(storageService, renditionRepository,
+                new ImageDownscaler(), new SyncTaskExecutor());
+        ReflectionTestUtils.setField(renditionService, "enabled", true);
+        ReflectionTestUtils.setField(renditionService, "sizes", "thumbnail=64,preview=512");
+        ReflectionTestUtils.setField(renditionService, "format", "jpg");
+        renditionService.init();
+    }
+
+    @Test
+    void scalesLargeImagesAndReusesTheOriginalWhenAlreadySmall() throws Exception {
+        doAnswer(invocation -> {
+            ImageIO.write(new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB), "png",
+                    invocation.<Path>getArgument(1).toFile());
+            return null;
+        }).when(storageService).downloadFile(eq("key-a.png"), any(Path.class));
+
+        renditionService.generateAsync(image);
+
+        ArgumentCaptor<ImageRendition> saved = ArgumentCaptor.forClass(ImageRendition.class);
+        verify(renditionRepository, times(2)).save(saved.capture());
+        Map<String, ImageRendition> byName = saved.getAllValues().stream()
+                .collect(Collectors.toMap(ImageRendition::getName, Function.identity()));
+
+        assertThat(byName.get("thumbnail").getStorageKey()).isEqualTo("key-a.png.thumbnail.jpg");
+        assertThat(byName.get("thumbnail").getMimeType()).isEqualTo("image/jpeg");
+        assertThat(byName.get("preview").getStorageKey()).isEqualTo("key-a.png");
+        assertThat(byName.get("preview").getUrl()).isEqualTo(image.getS3Url());
+        verify(storageService, times(1)).uploadFile(anyString(), any(Path.class), anyString());
+    }
+
+    @Test
+    void sharesRenditionsOfDeduplicatedUploads() {
+        Image other = Image.builder().id(3L).storageKey("key-a.png").build();
+        when(renditionRepository.findByImageStorageKey("key-a.png")).thenReturn(List.of(
+                ImageRendition.builder().image(other).name("thumbnail").storageKey("key-a.png.thumbnail.jpg").build(),
+                ImageRendition.builder().image(other).name("preview").storageKey("key-a.png").build()));
+
+        renditionService.generateAsync(image);
+
+        verify(renditionRepository, times(2)).save(any(ImageRendition.class));
+        verify(storageService, never()).downloadFile(anyString(), any(Path.class));
+    }
+}
@@ -0,0 +1,98 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.support.InMemoryS3Client;
+import imagelify.api.upload.StagedUpload;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class S3MultipartUploaderTest {
+
+    private static final int MB = 1024 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryS3Client s3Client;
+    private ThreadPoolTaskExecutor executor;
+    private S3MultipartUploader uploader;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = new InMemoryS3Client();
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.initialize();
+        uploader = new S3MultipartUploader(s3Client, executor);
+        ReflectionTestUtils.setField(uploader, "partSize", DataSize.ofMegabytes(5));
+        ReflectionTestUtils.setField(uploader, "maxPartsInFlight", 3);
+        ReflectionTestUtils.setField(uploader, "maxAttempts", 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void uploadsStagedFileInParallelPartsAndReassemblesIt() throws IOException {
+        byte[] content = randomBytes(23 * MB);
+        Path path = Files.write(tempDir.resolve("staged"), content);
+
+        uploader.upload(createRequest("large.jpg"), new StagedUpload(path, "large.jpg", "image/jpeg", content.length, null));
+
+        assertThat(s3Client.object("images", "large.jpg")).isEqualTo(content);
+        assertThat(s3Client.partCalls()).isEqualTo(5);
+    }
+
+    @Test
+    void uploadsStreamSourceAndRetriesFailedPart() {
+        byte[] content = randomBytes(12 * MB);
+        s3Client.failPart(2, 2);
+
+        uploader.upload(createRequest("retried.png"), new MockMultipartFile("file", "retried.png", "image/png", content));
+
+        assertThat(s3Client.object("images", "retried.png")).isEqualTo(content);
+        assertThat(s3Client.partCalls()).isEqualTo(5);
+    }
+
+    @Test
+    void abortsUploadWhenPartKeepsFailing() {
+        byte[] content = randomBytes(12 * MB);
+        s3Client.failPart(3, 10);
+
+        assertThatThrownBy(() -> uploader.upload(createRequest("broken.png"),
+                new MockMultipartFile("file", "broken.png", "image/png", content)))
+                .isInstanceOf(SdkClientException.class);
+
+        assertThat(s3Client.object("images", "broken.png")).isNull();
+        assertThat(s3Client.abortedUploads()).hasSize(1);
+        assertThat(s3Client.pendingUploads()).isEmpty();
+    }
+
+    private static CreateMultipartUploadRequest createRequest(String key) {
+        return CreateMultipartUploadRequest.builder().bucket("images").key(key).build();
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,134 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.config.S3Config.ReadUrlStrategy;
+import imagelify.api.dto.StoredObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.PutBucketPolicyRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class S3ServiceTest {
+
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private S3Client s3Client;
+    private S3Presigner s3Presigner;
+    private S3Service s3Service;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = mock(S3Client.class);
+        s3Presigner = S3Presigner.builder()
+                .endpointOverride(URI.create("http://cdn.example.com"))
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("key", "secret")))
+                .region(Region.US_EAST_1)
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                .build();
+
+        s3Service = new S3Service(s3Client, null, s3Presigner, ObservationRegistry.NOOP, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(s3Service, "bucketName", "images");
+        ReflectionTestUtils.setField(s3Service, "minioPublicUrl", "http://cdn.example.com");
+        ReflectionTestUtils.setField(s3Service, "multipartThreshold", DataSize.ofMegabytes(16));
+        ReflectionTestUtils.setField(s3Service, "readUrlTtl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(s3Service, "cacheControl", CACHE_CONTROL);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3Presigner.close();
+    }
+
+    @Test
+    void storesObjectsUnderAContentAddressedKeyWithImmutableCaching() {
+        ReflectionTestUtils.setField(s3Service, "readUrlStrategy", ReadUrlStrategy.PUBLIC);
+        s3Service.init();
+        MockMultipartFile file = new MockMultipartFile("file", "Cat.PNG", "image/png", "hello".getBytes());
+
+        StoredObject first = s3Service.uploadFile(file);
+        StoredObject second = s3Service.uploadFile(new MockMultipartFile("file", "other.png", "image/png", "hello".getBytes()));
+
+        assertThat(first.key()).isEqualTo("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824.png");
+        assertThat(second.key()).isEqualTo(first.key());
+        ArgumentCaptor<PutObjectRequest> put = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3Client, times(2)).putObject(put.capture(), any(RequestBody.class));
+        assertThat(put.getValue().cacheControl()).isEqualTo(CACHE_CONTROL);
+    }
+
+    @Test
+    void publicStrategyServesStaticUrlsFromAPublicBucket() {
+        ReflectionTestUtils.setField(s3Service, "readUrlStrategy", ReadUrlStrategy.PUBLIC);
+        s3Service.init();
+
+        assertThat(s3Service.readUrl("abc.png")).isEqualTo("http://cdn.example.com/images/abc.png");
+        verify(s3Client).putBucketPolicy(any(PutBucketPolicyRequest.class));
+    }
+
+    @Test
+    void presignedStrategySignsListingsInOneBatchAndReusesTheUrls() {
+        ReflectionTestUtils.setField(s3Service, "readUrlStrategy", ReadUrlStrategy.PRESIGNED);
+        s3Service.init();
+
+        Map<String, String> urls = s3Service.readUrls(List.of("a.png", "b.png", "a.png"));
+
+        assertThat(urls).containsOnlyKeys("a.png", "b.png");
+        assertThat(urls.get("a.png")).startsWith("http://cdn.example.com/images/a.png?")
+                .contains("X-Amz-Signature=").contains("X-Amz-Expires=3600");
+        // The same URL is handed out again, so browsers and CDNs can serve the repeat view from cache
+        assertThat(s3Service.readUrl("a.png")).isEqualTo(urls.get("a.png"));
+        verify(s3Client, never()).putBucketPolicy(any(PutBucketPolicyRequest.class));
+    }
+
+    @Test
+    void deletesInCallsOfAtMostAThousandKeysAndReportsTheFailedOnes() {
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenAnswer(invocation -> {
+            DeleteObjectsRequest request = invocation.getArgument(0);
+            List<S3Error> errors = request.delete().objects().stream()
+                    .filter(object -> object.key().equals("key-1500"))
+                    .map(object -> S3Error.builder().key(object.key()).code("AccessDenied").build())
+                    .toList();
+            return DeleteObjectsResponse.builder().errors(errors).build();
+        });
+        List<String> keys = IntStream.range(0, 2001).mapToObj(i -> "key-" + i).toList();
+
+        Set<String> failed = s3Service.deleteFiles(keys);
+
+        assertThat(failed).containsExactly("key-1500");
+        ArgumentCaptor<DeleteObjectsRequest> delete = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(s3Client, times(3)).deleteObjects(delete.capture());
+        assertThat(delete.getAllValues()).extracting(request -> request.delete().objects().size())
+                .containsExactly(1000, 1000, 1);
+        assertThat(delete.getValue().delete().quiet()).isTrue();
+    }
+}
@@ -0,0 +1,201 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.config.ModerationClientConfig;
+import imagelify.api.dto.ModerationVerdict;
+import imagelify.api.exception.ModerationUnavailableException;
+import imagelify.api.imaging.ImageDownscaler;
+import imagelify.api.support.StubSightengineServer;
+import imagelify.api.upload.StagedUpload;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.RestTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SightengineServiceImplTest {
+
+    private final MockMultipartFile file = new MockMultipartFile("file", "a.jpg", "image/jpeg", new byte[2048]);
+
+    @TempDir
+    Path tempDir;
+
+    private StubSightengineServer stub;
+    private CircuitBreaker circuitBreaker;
+    private SightengineServiceImpl service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = new StubSightengineServer();
+        circuitBreaker = CircuitBreaker.of("test", CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .build());
+        service = new SightengineServiceImpl(restTemplate(Duration.ofMillis(300)), circuitBreaker,
+                Bulkhead.ofDefaults("test"), new ImageDownscaler());
+        ReflectionTestUtils.setField(service, "apiUser", "user");
+        ReflectionTestUtils.setField(service, "apiSecret", "secret");
+        ReflectionTestUtils.setField(service, "apiUrl", stub.url());
+        ReflectionTestUtils.setField(service, "failurePolicy", SightengineServiceImpl.FailurePolicy.CLOSED);
+        ReflectionTestUtils.setField(service, "proxyEnabled", true);
+        ReflectionTestUtils.setField(service, "proxyMinSize", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(service, "proxyMaxDimension", 1280);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    void classifiesProviderResponses() {
+        assertThat(service.moderate(file, "h").approved()).isTrue();
+
+        stub.setResponse(StubSightengineServer.UNSAFE_RESPONSE);
+        ModerationVerdict verdict = service.moderate(file, "h");
+
+        assertThat(verdict.approved()).isFalse();
+        assertThat(verdict.verified()).isTrue();
+    }
+
+    @Test
+    void slowProviderTimesOutAndFailsClosed() {
+        stub.setLatency(Duration.ofSeconds(2));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> service.moderate(file, "h")).isInstanceOf(ModerationUnavailableException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void slowProviderFailsOpenWithUnverifiedVerdict() {
+        ReflectionTestUtils.setField(service, "failurePolicy", SightengineServiceImpl.FailurePolicy.OPEN);
+        stub.setLatency(Duration.ofSeconds(2));
+
+        ModerationVerdict verdict = service.moderate(file, "h");
+
+        assertThat(verdict.approved()).isTrue();
+        assertThat(verdict.verified()).isFalse();
+    }
+
+    @Test
+    void circuitOpensAfterRepeatedFailuresAndStopsCallingProvider() {
+        stub.setResponse("{\"status\":\"failure\",\"error\":{\"message\":\"quota\"}}");
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> service.moderate(file, "h")).isInstanceOf(ModerationUnavailableException.class);
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThatThrownBy(() -> service.moderate(file, "h")).isInstanceOf(ModerationUnavailableException.class);
+        assertThat(stub.requests()).isEqualTo(4);
+    }
+
+    @Test
+    void allocationPerModerationCallDoesNotGrowWithFileSize() throws IOException {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        StagedUpload small = stage(8);
+        StagedUpload large = stage(64);
+        service.moderate(small, "warm-up");
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        service.moderate(small, "small");
+        long smallAllocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        before = threads.getThreadAllocatedBytes(threadId);
+        service.moderate(large, "large");
+        long largeAllocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertThat(stub.bytesReceived()).isGreaterThan(64L * 1024 * 1024);
+        assertThat(largeAllocated).as("bytes allocated moderating a 64MB file").isLessThan(4L * 1024 * 1024);
+        assertThat(largeAllocated).as("bytes allocated moderating a 64MB file, against %d for an 8MB one", smallAllocated)
+                .isLessThan(smallAllocated + 1024 * 1024);
+    }
+
+    @Test
+    void largeImagesAreModeratedOnADownscaledProxy() throws IOException {
+        BufferedImage noise = new BufferedImage(3000, 2000, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(7);
+        for (int y = 0; y < noise.getHeight(); y++) {
+            for (int x = 0; x < noise.getWidth(); x++) {
+                noise.setRGB(x, y, random.nextInt());
+            }
+        }
+        Path path = tempDir.resolve("photo.png");
+        ImageIO.write(noise, "png", path.toFile());
+        StagedUpload upload = new StagedUpload(path, "photo.png", "image/png", Files.size(path), "h");
+
+        assertThat(service.moderate(upload, "h").approved()).isTrue();
+        assertThat(stub.bytesReceived()).isLessThan(upload.getSize() / 4);
+    }
+
+    @Test
+    void animatedImagesAreModeratedOnTheOriginal() throws IOException {
+        ReflectionTestUtils.setField(service, "proxyMinSize", DataSize.ofBytes(1));
+        Path path = tempDir.resolve("animation.gif");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(path.toFile())) {
+            writer.setOutput(out);
+            writer.prepareWriteSequence(null);
+            for (int i = 0; i < 2; i++) {
+                writer.writeToSequence(new IIOImage(new BufferedImage(3000, 200, BufferedImage.TYPE_BYTE_INDEXED),
+                        null, null), null);
+            }
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+        }
+        StagedUpload upload = new StagedUpload(path, "animation.gif", "image/gif", Files.size(path), "h");
+
+        assertThat(service.moderate(upload, "h").approved()).isTrue();
+        // A proxy would carry only the first frame
+        assertThat(stub.bytesReceived()).isGreaterThanOrEqualTo(upload.getSize());
+    }
+
+    private StagedUpload stage(int megabytes) throws IOException {
+        Path path = tempDir.resolve(megabytes + "mb.bin");
+        byte[] chunk = new byte[1024 * 1024];
+        new Random(megabytes).nextBytes(chunk);
+        try (OutputStream out = Files.newOutputStream(path)) {
+            for (int i = 0; i < megabytes; i++) {
+                out.write(chunk);
+            }
+        }
+        return new StagedUpload(path, megabytes + "mb.jpg", "image/jpeg", Files.size(path), "h");
+    }
+
+    private static RestTemplate restTemplate(Duration readTimeout) {
+        ModerationClientConfig config = new ModerationClientConfig();
+        ReflectionTestUtils.setField(config, "maxConnections", 10);
+        ReflectionTestUtils.setField(config, "connectTimeout", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(config, "readTimeout", readTimeout);
+        ReflectionTestUtils.setField(config, "connectionRequestTimeout", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(config, "keepAlive", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(config, "connectionTtl", Duration.ofMinutes(5));
+        return config.restTemplate();
+    }
+}
@@ -0,0 +1,149 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.entity.Image;
+import imagelify.api.entity.Plan;
+import imagelify.api.entity.StorageDeletion;
+import imagelify.api.entity.User;
+import imagelify.api.repository.ImageRepository;
+import imagelify.api.repository.PlanRepository;
+import imagelify.api.repository.StorageDeletionRepository;
+import imagelify.api.repository.UserRepository;
+import imagelify.api.service.StorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs against H2 with real transactions, so the reaper's locking queries execute as they would in MySQL.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "storage.cleanup.interval=1h",
+        "storage.cleanup.batch-size=2",
+        "storage.cleanup.grace-period=0s",
+        "storage.cleanup.orphan-sweep.min-age=0s"
+})
+@Import({StorageCleanupServiceImpl.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StorageCleanupServiceImplTest {
+
+    private static final String HASH = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+    @Autowired
+    private StorageCleanupServiceImpl storageCleanupService;
+
+    @Autowired
+    private StorageDeletionRepository storageDeletionRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlanRepository planRepository;
+
+    @MockitoBean
+    private StorageService storageService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        Plan plan = planRepository.save(Plan.builder()
+                .name("FREE").maxImages(10).price(0.0).isActive(true).build());
+        user = userRepository.save(User.builder()
+                .username("ana").password("secret").email("ana@example.com")
+                .registrationDate(LocalDateTime.now()).isEnabled(true).plan(plan).build());
+        when(storageService.deleteFiles(anyCollection())).thenReturn(Set.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        storageDeletionRepository.deleteAll();
+        imageRepository.deleteAll();
+        userRepository.deleteAll();
+        planRepository.deleteAll();
+    }
+
+    @Test
+    void reaperDeletesQueuedObjectsButKeepsTheOnesReferencedAgain() {
+        store("b.png");
+        storageCleanupService.scheduleDeletion(List.of("a.png", "b.png", "c.png"));
+
+        int dequeued = storageCleanupService.deleteScheduled();
+
+        assertThat(dequeued).isEqualTo(3);
+        assertThat(storageDeletionRepository.count()).isZero();
+        verify(storageService).deleteFiles(Set.of("a.png"));
+        verify(storageService).deleteFiles(Set.of("c.png"));
+        verify(storageService, never()).deleteFiles(argThat(keys -> keys.contains("b.png")));
+    }
+
+    @Test
+    void failedDeletionsStayQueuedForTheNextPass() {
+        when(storageService.deleteFiles(anyCollection())).thenReturn(Set.of("a.png"));
+        storageCleanupService.scheduleDeletion(List.of("a.png", "b.png"));
+
+        storageCleanupService.deleteScheduled();
+
+        assertThat(storageDeletionRepository.findAll()).extracting(StorageDeletion::getStorageKey)
+                .containsExactly("a.png");
+    }
+
+    @Test
+    void reuploadingContentCancelsTheDeletionOfItsObjects() {
+        storageCleanupService.scheduleDeletion(List.of(HASH + ".png", HASH + ".thumb.webp", "other.png"));
+
+        storageCleanupService.cancelDeletions(HASH);
+
+        assertThat(storageDeletionRepository.findAll()).extracting(StorageDeletion::getStorageKey)
+                .containsExactly("other.png");
+    }
+
+    @Test
+    void sweepQueuesOnlyUnreferencedObjectsThisApplicationWrote() {
+        store(HASH + ".png");
+        storageCleanupService.scheduleDeletion(List.of("uploads/queued.png"));
+        when(storageService.listKeys(any(Instant.class))).thenReturn(Stream.of(
+                HASH + ".png",
+                HASH + ".thumb.webp",
+                "uploads/abandoned.png",
+                "uploads/queued.png",
+                "3f2c6a1e-legacy-upload.png"));
+
+        int orphans = storageCleanupService.scheduleOrphans();
+
+        assertThat(orphans).isEqualTo(2);
+        assertThat(storageDeletionRepository.findAll()).extracting(StorageDeletion::getStorageKey)
+                .containsExactlyInAnyOrder("uploads/queued.png", HASH + ".thumb.webp", "uploads/abandoned.png");
+    }
+
+    private void store(String key) {
+        imageRepository.save(Image.builder()
+                .filename(key).s3Url("http://storage/images/" + key).storageKey(key)
+                .fileSize(100L).mimeType("image/png").uploadDate(LocalDateTime.now()).user(user).build());
+    }
+}
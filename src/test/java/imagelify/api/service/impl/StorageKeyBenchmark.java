@@ -0,0 +1,62 @@
+package imagelify.api.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de generar la clave del objeto y su URL pública en cada subida, con nombres ASCII y con
+ * caracteres que hay que codificar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageKeyBenchmark {
+
+    private static final String CONTENT_HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    @Param({"holiday-photo.jpg", "Fotos de año nuevo (copia) #2.jpeg"})
+    public String filename;
+
+    private S3Service s3Service;
+    private String key;
+
+    @Setup
+    public void setUp() {
+        s3Service = new S3Service(null, null, null, ObservationRegistry.NOOP, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(s3Service, "bucketName", "images");
+        ReflectionTestUtils.setField(s3Service, "minioPublicUrl", "http://localhost:9000");
+        key = s3Service.newObjectKey(CONTENT_HASH, filename);
+    }
+
+    @Benchmark
+    public String objectKey() {
+        return s3Service.newObjectKey(CONTENT_HASH, filename);
+    }
+
+    @Benchmark
+    public String publicUrl() {
+        return s3Service.publicUrl(key);
+    }
+
+    @Benchmark
+    public String keyAndUrl() {
+        return s3Service.publicUrl(s3Service.newObjectKey(CONTENT_HASH, filename));
+    }
+}
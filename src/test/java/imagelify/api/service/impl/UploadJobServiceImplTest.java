@@ -0,0 +1,166 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.entity.Image;
+import imagelify.api.entity.UploadJob;
+import imagelify.api.entity.UploadJobStatus;
+import imagelify.api.entity.User;
+import imagelify.api.exception.InappropriateContentException;
+import imagelify.api.exception.UploadQueueFullException;
+import imagelify.api.repository.UploadJobRepository;
+import imagelify.api.service.ImageService;
+import imagelify.api.upload.StagedUpload;
+import imagelify.api.upload.UploadStager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UploadJobServiceImplTest {
+
+    @TempDir
+    Path stagingDir;
+
+    private UploadJobRepository uploadJobRepository;
+    private ImageService imageService;
+    private Map<String, UploadJob> jobs;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        uploadJobRepository = mock(UploadJobRepository.class);
+        imageService = mock(ImageService.class);
+        user = User.builder().id(1L).username("ana").build();
+
+        // Saved copies are kept apart from the instance returned to the caller, as the database would
+        jobs = new ConcurrentHashMap<>();
+        when(uploadJobRepository.save(any(UploadJob.class))).thenAnswer(invocation -> {
+            UploadJob job = invocation.getArgument(0);
+            jobs.put(job.getId(), copy(job));
+            return job;
+        });
+        when(uploadJobRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(jobs.get(invocation.<String>getArgument(0)))
+                        .map(UploadJobServiceImplTest::copy));
+    }
+
+    @Test
+    void submittedJobIsPendingUntilTheWorkerRuns() throws IOException {
+        StagedUpload upload = stagedUpload();
+
+        UploadJob job = service(task -> { }).submit(upload, user);
+
+        assertThat(job.getStatus()).isEqualTo(UploadJobStatus.PENDING);
+        assertThat(job.getUserId()).isEqualTo(1L);
+        assertThat(job.getFilename()).isEqualTo("cat.png");
+        // Owned by the queued worker now
+        assertThat(upload.getPath()).exists();
+    }
+
+    @Test
+    void completedJobRecordsTheImageAndDeletesTheStagedFile() throws IOException {
+        StagedUpload upload = stagedUpload();
+        when(imageService.uploadImage(upload, user)).thenReturn(Image.builder().id(42L).build());
+
+        UploadJob job = service(new SyncTaskExecutor()).submit(upload, user);
+
+        UploadJob processed = jobs.get(job.getId());
+        assertThat(processed.getStatus()).isEqualTo(UploadJobStatus.COMPLETED);
+        assertThat(processed.getImageId()).isEqualTo(42L);
+        assertThat(processed.getCompletedAt()).isNotNull();
+        assertThat(upload.getPath()).doesNotExist();
+    }
+
+    @Test
+    void failedJobRecordsTheErrorAndDeletesTheStagedFile() throws IOException {
+        StagedUpload upload = stagedUpload();
+        when(imageService.uploadImage(upload, user)).thenThrow(new InappropriateContentException("nudity"));
+
+        UploadJob job = service(new SyncTaskExecutor()).submit(upload, user);
+
+        UploadJob processed = jobs.get(job.getId());
+        assertThat(processed.getStatus()).isEqualTo(UploadJobStatus.FAILED);
+        assertThat(processed.getErrorMessage()).isEqualTo("nudity");
+        assertThat(processed.getImageId()).isNull();
+        assertThat(upload.getPath()).doesNotExist();
+    }
+
+    @Test
+    void fullQueueIsRejectedWith503AndDropsTheJob() throws IOException {
+        StagedUpload upload = stagedUpload();
+        UploadJobServiceImpl service = service(task -> {
+            throw new TaskRejectedException("queue full");
+        });
+
+        assertThatThrownBy(() -> service.submit(upload, user))
+                .isInstanceOf(UploadQueueFullException.class)
+                .satisfies(e -> assertThat(AnnotatedElementUtils.findMergedAnnotation(e.getClass(), ResponseStatus.class))
+                        .extracting(ResponseStatus::code).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        verify(uploadJobRepository).delete(any(UploadJob.class));
+        assertThat(upload.getPath()).doesNotExist();
+    }
+
+    @Test
+    void stagedFileIsDeletedWhenTheJobCannotBeRecorded() throws IOException {
+        StagedUpload upload = stagedUpload();
+        when(uploadJobRepository.save(any(UploadJob.class)))
+                .thenThrow(new DataAccessResourceFailureException("database down"));
+
+        assertThatThrownBy(() -> service(new SyncTaskExecutor()).submit(upload, user))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+        verify(imageService, never()).uploadImage(any(), any());
+        assertThat(upload.getPath()).doesNotExist();
+    }
+
+    @Test
+    void jobFailedAsAbandonedWhileQueuedIsNotProcessed() throws IOException {
+        StagedUpload upload = stagedUpload();
+        List<Runnable> queue = new ArrayList<>();
+        UploadJob job = service(queue::add).submit(upload, user);
+
+        // The cleanup fails it before a worker gets to it
+        jobs.get(job.getId()).setStatus(UploadJobStatus.FAILED);
+        queue.forEach(Runnable::run);
+
+        verify(imageService, never()).uploadImage(any(StagedUpload.class), any());
+        assertThat(jobs.get(job.getId()).getStatus()).isEqualTo(UploadJobStatus.FAILED);
+        assertThat(upload.getPath()).doesNotExist();
+    }
+
+    private UploadJobServiceImpl service(TaskExecutor executor) {
+        return new UploadJobServiceImpl(uploadJobRepository, imageService, executor, new UploadStager());
+    }
+
+    private static UploadJob copy(UploadJob job) {
+        return new UploadJob(job.getId(), job.getUserId(), job.getFilename(), job.getStatus(), job.getImageId(),
+                job.getImageUrl(), job.getErrorMessage(), job.getCreatedAt(), job.getCompletedAt());
+    }
+
+    private StagedUpload stagedUpload() throws IOException {
+        Path file = Files.write(stagingDir.resolve("upload.tmp"), new byte[]{1, 2, 3});
+        return new StagedUpload(file, "cat.png", "image/png", 3, "hash");
+    }
+}
@@ -0,0 +1,118 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.dto.ModerationVerdict;
+import imagelify.api.dto.StoredObject;
+import imagelify.api.entity.User;
+import imagelify.api.repository.ImageRenditionRepository;
+import imagelify.api.repository.ImageRepository;
+import imagelify.api.service.ContentModerationService;
+import imagelify.api.service.RenditionService;
+import imagelify.api.service.StorageCleanupService;
+import imagelify.api.service.StorageService;
+import imagelify.api.service.UserUsageService;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares concurrent-upload throughput and p99 latency of {@link ImageServiceImpl} on a Tomcat-sized
+ * platform thread pool versus one virtual thread per request. Downstream I/O (moderation, storage, JDBC)
+ * is simulated with fixed sleeps. Run with {@code mvn test -Pload-test}.
+ */
+@Tag("load")
+class UploadThreadingLoadTest {
+
+    private static final int UPLOADS = 2_000;
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final User USER = User.builder().id(1L).username("load").build();
+
+    @Test
+    void virtualThreadsSustainMoreConcurrentUploadsThanPlatformThreads() throws Exception {
+        ImageServiceImpl imageService = imageServiceWithSimulatedIo();
+
+        Result platform = run(imageService, Executors.newFixedThreadPool(TOMCAT_MAX_THREADS));
+        Result virtual = run(imageService, Executors.newVirtualThreadPerTaskExecutor());
+
+        assertThat(virtual.throughput()).as("virtual threads uploads/s").isGreaterThan(platform.throughput());
+        assertThat(virtual.p99Millis()).as("virtual threads p99 ms").isLessThan(platform.p99Millis());
+        assertThat(virtual.p50Millis()).as("virtual threads p50 ms").isLessThan(platform.p50Millis());
+    }
+
+    private static Result run(ImageServiceImpl imageService, ExecutorService executor) throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "photo.jpg", "image/jpeg", new byte[1024]);
+        List<Future<Long>> latencies = new ArrayList<>(UPLOADS);
+        long start = System.nanoTime();
+        try (executor) {
+            for (int i = 0; i < UPLOADS; i++) {
+                long submitted = System.nanoTime();
+                latencies.add(executor.submit(() -> {
+                    imageService.uploadImage(file, USER);
+                    return System.nanoTime() - submitted;
+                }));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long[] sorted = new long[UPLOADS];
+        for (int i = 0; i < UPLOADS; i++) {
+            sorted[i] = latencies.get(i).get();
+        }
+        Arrays.sort(sorted);
+        return new Result(UPLOADS * 1_000_000_000.0 / elapsed,
+                sorted[UPLOADS / 2] / 1_000_000, sorted[(int) (UPLOADS * 0.99)] / 1_000_000);
+    }
+
+    private static ImageServiceImpl imageServiceWithSimulatedIo() {
+        ImageRepository imageRepository = stub(ImageRepository.class, (method, args) -> {
+            sleep(5);
+            return method.getName().equals("save") ? args[0] : Optional.empty();
+        });
+        ContentModerationService moderationService = (file, contentHash) -> {
+            sleep(40);
+            return ModerationVerdict.approve();
+        };
+        StorageService storageService = stub(StorageService.class, (method, args) -> {
+            sleep(60);
+            return new StoredObject("photo.jpg", "http://storage/images/photo.jpg");
+        });
+
+        return new ImageServiceImpl(storageService, imageRepository, stub(ImageRenditionRepository.class, (method, args) -> null),
+                stub(UserUsageService.class, (method, args) -> null), moderationService,
+                stub(RenditionService.class, (method, args) -> null), stub(StorageCleanupService.class, (method, args) -> null),
+                Runnable::run, ObservationRegistry.NOOP);
+    }
+
+    /**
+     * Cheap stand-in for a Spring Data repository or service; a mocking framework would dominate the CPU profile here.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, BiFunction<Method, Object[], Object> handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.apply(method, args));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Result(double throughput, long p50Millis, long p99Millis) {
+    }
+}
@@ -0,0 +1,62 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.entity.User;
+import imagelify.api.repository.UserRepository;
+import imagelify.api.security.CaffeineUserDetailsCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceImplTest {
+
+    private final User user = User.builder().id(1L).username("ana").build();
+
+    private UserRepository userRepository;
+    private CaffeineUserDetailsCache cache;
+    private UserServiceImpl userService;
+    private UserDetailsService userDetailsService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findByUsername("ana")).thenReturn(Optional.of(user));
+        cache = new CaffeineUserDetailsCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        userService = new UserServiceImpl(userRepository, cache);
+        userDetailsService = userService.userDetailsService();
+    }
+
+    @Test
+    void servesRepeatedLookupsFromTheCache() {
+        assertThat(userDetailsService.loadUserByUsername("ana")).isSameAs(user);
+        assertThat(userDetailsService.loadUserByUsername("ana")).isSameAs(user);
+
+        verify(userRepository, times(1)).findByUsername("ana");
+    }
+
+    @Test
+    void reloadsAfterInvalidation() {
+        userDetailsService.loadUserByUsername("ana");
+        cache.removeUserFromCache("ana");
+        userDetailsService.loadUserByUsername("ana");
+
+        verify(userRepository, times(2)).findByUsername("ana");
+    }
+
+    @Test
+    void credentialsAreAlwaysCheckedAgainstTheDatabase() {
+        userDetailsService.loadUserByUsername("ana");
+
+        assertThat(userService.credentialsUserDetailsService().loadUserByUsername("ana")).isSameAs(user);
+        verify(userRepository, times(2)).findByUsername("ana");
+    }
+}
@@ -0,0 +1,163 @@
+package imagelify.api.service.impl;
+
+import imagelify.api.entity.Image;
+import imagelify.api.entity.Plan;
+import imagelify.api.entity.User;
+import imagelify.api.exception.ImageLimitExceededException;
+import imagelify.api.repository.ImageRepository;
+import imagelify.api.repository.PlanRepository;
+import imagelify.api.repository.UserRepository;
+import imagelify.api.repository.UserUsageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs against H2 with real transactions (no test-managed rollback), so concurrent reservations
+ * contend on the same counter row as they would in MySQL.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(UserUsageServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserUsageServiceImplTest {
+
+    private static final int MAX_IMAGES = 5;
+
+    @Autowired
+    private UserUsageServiceImpl userUsageService;
+
+    @Autowired
+    private UserUsageRepository userUsageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlanRepository planRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    private Plan plan;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        plan = planRepository.save(Plan.builder()
+                .name("FREE").maxImages(MAX_IMAGES).price(0.0).isActive(true).build());
+        user = userRepository.save(User.builder()
+                .username("ana").password("secret").email("ana@example.com")
+                .registrationDate(LocalDateTime.now()).isEnabled(true).plan(plan).build());
+        // As signup does
+        userUsageService.initialize(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAll();
+        userUsageRepository.deleteAll();
+        userRepository.deleteAll();
+        planRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentUploadsCannotExceedThePlanLimit() throws Exception {
+        int uploads = 40;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            for (int i = 0; i < uploads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        userUsageService.reserve(user, 1024);
+                        return true;
+                    } catch (ImageLimitExceededException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+        }
+
+        long accepted = 0;
+        for (Future<Boolean> result : results) {
+            accepted += result.get() ? 1 : 0;
+        }
+        assertThat(accepted).isEqualTo(MAX_IMAGES);
+        assertThat(userUsageRepository.findById(user.getId())).get()
+                .satisfies(usage -> {
+                    assertThat(usage.getImageCount()).isEqualTo(MAX_IMAGES);
+                    assertThat(usage.getTotalBytes()).isEqualTo(MAX_IMAGES * 1024L);
+                });
+    }
+
+    @Test
+    void seedsTheCountersFromExistingImagesAndReleasesReservations() {
+        User unseeded = unseededUser("luis");
+        for (int i = 0; i < MAX_IMAGES; i++) {
+            imageRepository.save(Image.builder()
+                    .filename("photo-" + i + ".jpg").s3Url("http://storage/images/photo-" + i + ".jpg")
+                    .fileSize(100L).mimeType("image/jpeg").uploadDate(LocalDateTime.now()).user(unseeded).build());
+        }
+
+        assertThatThrownBy(() -> userUsageService.reserve(unseeded, 100))
+                .isInstanceOf(ImageLimitExceededException.class);
+        assertThat(userUsageRepository.findById(unseeded.getId()).orElseThrow().getTotalBytes()).isEqualTo(500);
+
+        userUsageService.release(unseeded.getId(), 100);
+        userUsageService.reserve(unseeded, 200);
+
+        assertThat(userUsageRepository.findById(unseeded.getId()).orElseThrow().getTotalBytes()).isEqualTo(600);
+    }
+
+    @Test
+    void concurrentFirstUploadsSeedTheCountersOnce() throws Exception {
+        // Several rounds, each racing on a fresh user, so a lost race shows up on every run rather than now and then
+        for (int round = 0; round < 10; round++) {
+            User unseeded = unseededUser("luis" + round);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> results = new ArrayList<>();
+            try (ExecutorService executor = Executors.newFixedThreadPool(MAX_IMAGES)) {
+                for (int i = 0; i < MAX_IMAGES; i++) {
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        userUsageService.reserve(unseeded, 1024);
+                        return null;
+                    }));
+                }
+                start.countDown();
+            }
+
+            for (Future<?> result : results) {
+                assertThatNoException().isThrownBy(result::get);
+            }
+            assertThat(userUsageRepository.findById(unseeded.getId()).orElseThrow().getImageCount())
+                    .isEqualTo(MAX_IMAGES);
+        }
+    }
+
+    // A user created before the counters existed, with no user_usage row
+    private User unseededUser(String username) {
+        return userRepository.save(User.builder()
+                .username(username).password("secret").email(username + "@example.com")
+                .registrationDate(LocalDateTime.now()).isEnabled(true).plan(plan).build());
+    }
+}
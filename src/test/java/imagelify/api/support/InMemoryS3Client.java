@@ -0,0 +1,238 @@
+package imagelify.api.support;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+import software.amazon.awssdk.services.s3.model.CreateBucketResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
+import software.amazon.awssdk.services.s3.model.HeadBucketResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutBucketPolicyRequest;
+import software.amazon.awssdk.services.s3.model.PutBucketPolicyResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-process fake of the S3 operations the storage layer uses. Objects are kept in memory.
+ */
+public class InMemoryS3Client implements S3Client {
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, Instant> lastModified = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, byte[]>> pendingUploads = new ConcurrentHashMap<>();
+    private final Set<String> abortedUploads = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, AtomicInteger> partFailures = new ConcurrentHashMap<>();
+    private final AtomicInteger partCalls = new AtomicInteger();
+    private final AtomicReference<Duration> latency = new AtomicReference<>(Duration.ZERO);
+
+    /**
+     * Makes the next {@code times} attempts to upload the given part number fail.
+     */
+    public void failPart(int partNumber, int times) {
+        partFailures.put(partNumber, new AtomicInteger(times));
+    }
+
+    /**
+     * Adds a fixed delay to every object and part call, to stand in for a remote store.
+     */
+    public void setLatency(Duration latency) {
+        this.latency.set(latency);
+    }
+
+    public byte[] object(String bucket, String key) {
+        return objects.get(bucket + "/" + key);
+    }
+
+    public Set<String> abortedUploads() {
+        return abortedUploads;
+    }
+
+    public Set<String> pendingUploads() {
+        return pendingUploads.keySet();
+    }
+
+    public int partCalls() {
+        return partCalls.get();
+    }
+
+    @Override
+    public HeadBucketResponse headBucket(HeadBucketRequest request) {
+        return HeadBucketResponse.builder().build();
+    }
+
+    @Override
+    public CreateBucketResponse createBucket(CreateBucketRequest request) {
+        return CreateBucketResponse.builder().build();
+    }
+
+    @Override
+    public PutBucketPolicyResponse putBucketPolicy(PutBucketPolicyRequest request) {
+        return PutBucketPolicyResponse.builder().build();
+    }
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody requestBody) {
+        simulateLatency();
+        store(request.bucket(), request.key(), read(requestBody));
+        return PutObjectResponse.builder().eTag(UUID.randomUUID().toString()).build();
+    }
+
+    @Override
+    public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+        String uploadId = UUID.randomUUID().toString();
+        pendingUploads.put(uploadId, new ConcurrentHashMap<>());
+        return CreateMultipartUploadResponse.builder()
+                .bucket(request.bucket())
+                .key(request.key())
+                .uploadId(uploadId)
+                .build();
+    }
+
+    @Override
+    public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody requestBody) {
+        simulateLatency();
+        partCalls.incrementAndGet();
+        AtomicInteger failures = partFailures.get(request.partNumber());
+        if (failures != null && failures.getAndDecrement() > 0) {
+            throw SdkClientException.create("Injected failure for part " + request.partNumber());
+        }
+        Map<Integer, byte[]> parts = pendingUploads.get(request.uploadId());
+        if (parts == null) {
+            throw SdkClientException.create("No such upload " + request.uploadId());
+        }
+        parts.put(request.partNumber(), read(requestBody));
+        return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+    }
+
+    @Override
+    public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        Map<Integer, byte[]> parts = pendingUploads.remove(request.uploadId());
+        ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+        for (CompletedPart part : request.multipartUpload().parts()) {
+            assembled.writeBytes(parts.get(part.partNumber()));
+        }
+        store(request.bucket(), request.key(), assembled.toByteArray());
+        return CompleteMultipartUploadResponse.builder().bucket(request.bucket()).key(request.key()).build();
+    }
+
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+        pendingUploads.remove(request.uploadId());
+        abortedUploads.add(request.uploadId());
+        return AbortMultipartUploadResponse.builder().build();
+    }
+
+    @Override
+    public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+        simulateLatency();
+        byte[] object = objects.get(request.bucket() + "/" + request.key());
+        if (object == null) {
+            throw NoSuchKeyException.builder().message("No such key " + request.key()).statusCode(404).build();
+        }
+        return new ResponseInputStream<>(GetObjectResponse.builder().contentLength((long) object.length).build(),
+                AbortableInputStream.create(new ByteArrayInputStream(object)));
+    }
+
+    @Override
+    public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+        simulateLatency();
+        remove(request.bucket(), request.key());
+        return DeleteObjectResponse.builder().build();
+    }
+
+    @Override
+    public DeleteObjectsResponse deleteObjects(DeleteObjectsRequest request) {
+        simulateLatency();
+        request.delete().objects().forEach(object -> remove(request.bucket(), object.key()));
+        return DeleteObjectsResponse.builder().build();
+    }
+
+    /**
+     * Lists the whole bucket in one page.
+     */
+    @Override
+    public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+        String prefix = request.bucket() + "/";
+        List<S3Object> contents = objects.keySet().stream()
+                .filter(path -> path.startsWith(prefix))
+                .sorted()
+                .map(path -> S3Object.builder()
+                        .key(path.substring(prefix.length()))
+                        .size((long) objects.get(path).length)
+                        .lastModified(lastModified.get(path))
+                        .build())
+                .toList();
+        return ListObjectsV2Response.builder().contents(contents).keyCount(contents.size()).isTruncated(false).build();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void store(String bucket, String key, byte[] content) {
+        objects.put(bucket + "/" + key, content);
+        lastModified.put(bucket + "/" + key, Instant.now());
+    }
+
+    private void remove(String bucket, String key) {
+        objects.remove(bucket + "/" + key);
+        lastModified.remove(bucket + "/" + key);
+    }
+
+    private void simulateLatency() {
+        try {
+            Thread.sleep(latency.get().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] read(RequestBody requestBody) {
+        try (InputStream in = requestBody.contentStreamProvider().newStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package imagelify.api.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Local stand-in for the Sightengine check endpoint with configurable latency and response body.
+ */
+public class StubSightengineServer implements AutoCloseable {
+
+    public static final String SAFE_RESPONSE = """
+            {"status":"success","weapon":0.01,"nudity":{"raw":0.01},"violence":0.02}""";
+    public static final String UNSAFE_RESPONSE = """
+            {"status":"success","weapon":0.97,"nudity":{"raw":0.01}}""";
+
+    private final HttpServer server;
+    private final AtomicReference<Duration> latency = new AtomicReference<>(Duration.ZERO);
+    private final AtomicReference<String> response = new AtomicReference<>(SAFE_RESPONSE);
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    public StubSightengineServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/1.0/check.json", this::handle);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/1.0/check.json";
+    }
+
+    public void setLatency(Duration latency) {
+        this.latency.set(latency);
+    }
+
+    public void setResponse(String response) {
+        this.response.set(response);
+    }
+
+    public int requests() {
+        return requests.get();
+    }
+
+    public long bytesReceived() {
+        return bytesReceived.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                bytesReceived.addAndGet(read);
+            }
+        }
+        try {
+            Thread.sleep(latency.get().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] payload = response.get().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        try {
+            exchange.sendResponseHeaders(200, payload.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(payload);
+            }
+        } catch (IOException e) {
+            // Client gave up (read timeout); nothing left to do
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
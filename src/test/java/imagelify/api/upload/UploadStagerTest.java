@@ -0,0 +1,146 @@
+package imagelify.api.upload;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UploadStagerTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @TempDir
+    Path stagingDir;
+
+    private UploadStager uploadStager;
+
+    @BeforeEach
+    void setUp() {
+        uploadStager = new UploadStager();
+        ReflectionTestUtils.setField(uploadStager, "stagingDir", stagingDir.toString());
+        ReflectionTestUtils.setField(uploadStager, "maxFileSize", DataSize.ofMegabytes(200));
+    }
+
+    @Test
+    void stagingAndStreamingA200MbUploadKeepsHeapFlat() throws IOException {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+
+        long consumed;
+        try (StagedUpload upload = uploadStager.stage(new GeneratedInputStream(200 * MB), "big.jpg", "image/jpeg")) {
+            assertThat(upload.getSize()).isEqualTo(200 * MB);
+            // Same access path the moderation client uses for the multipart body
+            consumed = drain(upload.getResource().getInputStream());
+        }
+
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        assertThat(consumed).isEqualTo(200 * MB);
+        assertThat(allocated).isLessThan(8 * MB);
+    }
+
+    @Test
+    void computesContentHashWhileStaging() {
+        byte[] content = "hello".getBytes();
+        try (StagedUpload upload = uploadStager.stage(new ByteArrayInputStream(content), "a.png", "image/png")) {
+            assertThat(upload.getContentHash())
+                    .isEqualTo("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824");
+        }
+    }
+
+    @Test
+    void closeDeletesStagedFile() {
+        StagedUpload upload = uploadStager.stage(new GeneratedInputStream(MB), "small.png", "image/png");
+        assertThat(Files.exists(upload.getPath())).isTrue();
+
+        upload.close();
+
+        assertThat(Files.exists(upload.getPath())).isFalse();
+    }
+
+    @Test
+    void rejectsBodiesAboveMaxFileSizeAndCleansUp() throws IOException {
+        ReflectionTestUtils.setField(uploadStager, "maxFileSize", DataSize.ofMegabytes(1));
+
+        assertThatThrownBy(() -> uploadStager.stage(new GeneratedInputStream(2 * MB), "big.jpg", "image/jpeg"))
+                .isInstanceOf(MaxUploadSizeExceededException.class);
+        try (var files = Files.list(stagingDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    private static long drain(InputStream in) throws IOException {
+        try (in) {
+            byte[] buffer = new byte[64 * 1024];
+            long total = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Produces a fixed number of bytes without ever materialising them.
+     */
+    private static class GeneratedInputStream extends InputStream {
+        private long remaining;
+
+        GeneratedInputStream(long size) {
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() {
+            if (remaining == 0) {
+                return -1;
+            }
+            remaining--;
+            return 0x5A;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (remaining == 0) {
+                return -1;
+            }
+            int n = (int) Math.min(len, remaining);
+            Arrays.fill(b, off, off + n, (byte) 0x5A);
+            remaining -= n;
+            return n;
+        }
+    }
+
+    @Test
+    void onlyStaleStagingFilesAreDeleted() throws IOException {
+        Path stale = uploadStager.stage(new ByteArrayInputStream(new byte[]{1}), "a.png", "image/png").getPath();
+        Files.setLastModifiedTime(stale, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+        Path inFlight = uploadStager.stage(new ByteArrayInputStream(new byte[]{2}), "b.png", "image/png").getPath();
+        Path unrelated = Files.createFile(stagingDir.resolve("other.tmp"));
+        Files.setLastModifiedTime(unrelated, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+
+        assertThat(uploadStager.deleteStale(Duration.ofMinutes(30))).isEqualTo(1);
+
+        assertThat(stale).doesNotExist();
+        assertThat(inFlight).exists();
+        assertThat(unrelated).exists();
+    }
+}